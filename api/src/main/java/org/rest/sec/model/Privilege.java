@@ -3,27 +3,47 @@ package org.rest.sec.model;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Version;
 import javax.xml.bind.annotation.XmlRootElement;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Index;
+import org.hibernate.annotations.Parameter;
 import org.rest.common.persistence.model.INameableEntity;
+import org.rest.common.persistence.model.IVersionedEntity;
+import org.rest.common.util.NameUtil;
 
 import com.thoughtworks.xstream.annotations.XStreamAlias;
+import com.thoughtworks.xstream.annotations.XStreamOmitField;
 
 @Entity
 @XmlRootElement
 @XStreamAlias("privilege")
-public class Privilege implements INameableEntity {
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@BatchSize(size = 50)
+public class Privilege implements INameableEntity, IVersionedEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "privilegeId")
+    @GenericGenerator(name = "privilegeId", strategy = "org.rest.common.persistence.PooledIdGenerator", parameters = { @Parameter(name = "sequence_name", value = "PRIV_SEQ") })
     @Column(name = "PRIV_ID")
     private Long id;
     @Column(unique = true, nullable = false)
     private String name;
+    @Column(name = "NAME_LC")
+    @Index(name = "PRIV_NAME_LC_IDX")
+    @XStreamOmitField
+    private String nameLc;
     @Column(unique = false, nullable = true)
     private String description;
+    @Version
+    private Long version;
 
     public Privilege() {
         super();
@@ -64,6 +84,27 @@ public class Privilege implements INameableEntity {
         description = descriptionToSet;
     }
 
+    @Override
+    public Long getVersion() {
+        return version;
+    }
+
+    @Override
+    public void setVersion(final Long versionToSet) {
+        version = versionToSet;
+    }
+
+    // persistence
+
+    /**
+     * - note: keeps the normalized name (used by the case insensitive searches) in sync with the name, however the name was set
+     */
+    @PrePersist
+    @PreUpdate
+    private void normalizeName() {
+        nameLc = NameUtil.normalize(name);
+    }
+
     //
 
     @Override
@@ -6,36 +6,58 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Version;
 import javax.xml.bind.annotation.XmlRootElement;
 
 import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Index;
+import org.hibernate.annotations.Parameter;
 import org.rest.common.persistence.model.INameableEntity;
+import org.rest.common.persistence.model.IVersionedEntity;
+import org.rest.common.util.NameUtil;
 
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
 import com.thoughtworks.xstream.annotations.XStreamImplicit;
+import com.thoughtworks.xstream.annotations.XStreamOmitField;
 
 @Entity
 @XmlRootElement
 @XStreamAlias("role")
-public class Role implements INameableEntity {
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@BatchSize(size = 50)
+public class Role implements INameableEntity, IVersionedEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "roleId")
+    @GenericGenerator(name = "roleId", strategy = "org.rest.common.persistence.PooledIdGenerator", parameters = { @Parameter(name = "sequence_name", value = "ROLE_SEQ") })
     @Column(name = "ROLE_ID")
     @XStreamAsAttribute
     private Long id;
     @Column(unique = true, nullable = false)
     private String name;
+    @Column(name = "NAME_LC")
+    @Index(name = "ROLE_NAME_LC_IDX")
+    @XStreamOmitField
+    private String nameLc;
+    @Version
+    private Long version;
 
     // @formatter:off
-    @ManyToMany( /* cascade = { CascadeType.REMOVE }, */fetch = FetchType.EAGER)
+    @ManyToMany( /* cascade = { CascadeType.REMOVE }, */fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     @JoinTable(joinColumns = { @JoinColumn(name = "ROLE_ID", referencedColumnName = "ROLE_ID") }, inverseJoinColumns = { @JoinColumn(name = "PRIV_ID", referencedColumnName = "PRIV_ID") })
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @XStreamImplicit
     private Set<Privilege> privileges;
 
@@ -78,6 +100,16 @@ public class Role implements INameableEntity {
         name = nameToSet;
     }
 
+    @Override
+    public Long getVersion() {
+        return version;
+    }
+
+    @Override
+    public void setVersion(final Long versionToSet) {
+        version = versionToSet;
+    }
+
     public Set<Privilege> getPrivileges() {
         return privileges;
     }
@@ -86,6 +118,17 @@ public class Role implements INameableEntity {
         privileges = privilegesToSet;
     }
 
+    // persistence
+
+    /**
+     * - note: keeps the normalized name (used by the case insensitive searches) in sync with the name, however the name was set
+     */
+    @PrePersist
+    @PreUpdate
+    private void normalizeName() {
+        nameLc = NameUtil.normalize(name);
+    }
+
     //
 
     @Override
@@ -6,6 +6,7 @@ import javax.xml.bind.annotation.XmlRootElement;
 
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.rest.common.persistence.model.INameableEntity;
+import org.rest.common.persistence.model.IVersionedEntity;
 import org.rest.sec.model.Principal;
 import org.rest.sec.model.Role;
 
@@ -15,13 +16,15 @@ import com.thoughtworks.xstream.annotations.XStreamImplicit;
 
 @XmlRootElement
 @XStreamAlias("user")
-public class User implements INameableEntity {
+public class User implements INameableEntity, IVersionedEntity {
 
     @XStreamAsAttribute
     private Long id;
 
     private String name;
     private String password;
+    /** the version of the underlying principal */
+    private Long version;
 
     /* Marshalling */
     // - note: this gets rid of the collection entirely
@@ -48,6 +51,7 @@ public class User implements INameableEntity {
         name = principal.getName();
         roles = principal.getRoles();
         id = principal.getId();
+        version = principal.getVersion();
     }
 
     // API
@@ -88,6 +92,16 @@ public class User implements INameableEntity {
         roles = rolesToSet;
     }
 
+    @Override
+    public Long getVersion() {
+        return version;
+    }
+
+    @Override
+    public void setVersion(final Long versionToSet) {
+        version = versionToSet;
+    }
+
     //
 
     @Override
@@ -0,0 +1,137 @@
+package org.rest.common.caching;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Size-classed pool of the buffers the {@link ETagContentFilter} holds response bodies in. <br>
+ * - size classes are 4K, 16K, 64K, 256K and 1M; a request for more than the largest class is allocated and dropped as usual <br>
+ * - each class keeps at most <code>web.buffers.maxPooledPerSize</code> idle buffers; the rest are left to the garbage collector <br>
+ * - buffers are on the heap by default, or direct with <code>web.buffers.direct=true</code>
+ */
+@Component
+public class ByteBufferPool {
+
+    static final int[] SIZE_CLASSES = { 4 * 1024, 16 * 1024, 64 * 1024, 256 * 1024, 1024 * 1024 };
+
+    @Value("${web.buffers.direct:false}")
+    private boolean direct;
+
+    @Value("${web.buffers.maxPooledPerSize:64}")
+    private int maxPooledPerSize = 64;
+
+    private final Queue<ByteBuffer>[] pools;
+    private final AtomicInteger[] pooled;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    public ByteBufferPool() {
+        super();
+
+        pools = new Queue[SIZE_CLASSES.length];
+        pooled = new AtomicInteger[SIZE_CLASSES.length];
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            pools[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+            pooled[i] = new AtomicInteger();
+        }
+    }
+
+    // API
+
+    /**
+     * @return a cleared buffer with at least the given capacity
+     */
+    public final ByteBuffer acquire(final int minCapacity) {
+        final int sizeClass = sizeClassOf(minCapacity);
+        if (sizeClass < 0) {
+            misses.incrementAndGet();
+            return allocate(minCapacity);
+        }
+
+        final ByteBuffer buffer = pools[sizeClass].poll();
+        if (buffer == null) {
+            misses.incrementAndGet();
+            return allocate(SIZE_CLASSES[sizeClass]);
+        }
+        pooled[sizeClass].decrementAndGet();
+        hits.incrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * - note: the buffer must not be used by the caller afterwards
+     */
+    public final void release(final ByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        final int sizeClass = exactSizeClassOf(buffer.capacity());
+        if (sizeClass < 0 || buffer.isDirect() != direct || pooled[sizeClass].incrementAndGet() > maxPooledPerSize) {
+            if (sizeClass >= 0 && buffer.isDirect() == direct) {
+                pooled[sizeClass].decrementAndGet();
+            }
+            dropped.incrementAndGet();
+            return;
+        }
+        pools[sizeClass].offer(buffer);
+    }
+
+    public final long getHits() {
+        return hits.get();
+    }
+
+    public final long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of released buffers that were not kept because their size class was full (or they did not fit one)
+     */
+    public final long getDropped() {
+        return dropped.get();
+    }
+
+    public final int getPooled() {
+        int total = 0;
+        for (final AtomicInteger count : pooled) {
+            total += count.get();
+        }
+        return total;
+    }
+
+    @Override
+    public final String toString() {
+        return "ByteBufferPool [hits=" + hits + ", misses=" + misses + ", dropped=" + dropped + ", pooled=" + getPooled() + "]";
+    }
+
+    // util
+
+    private ByteBuffer allocate(final int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    static int sizeClassOf(final int capacity) {
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            if (capacity <= SIZE_CLASSES[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static int exactSizeClassOf(final int capacity) {
+        final int sizeClass = sizeClassOf(capacity);
+        return sizeClass >= 0 && SIZE_CLASSES[sizeClass] == capacity ? sizeClass : -1;
+    }
+
+}
@@ -0,0 +1,36 @@
+package org.rest.common.caching;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the <code>Cache-Control</code> policy of the GET responses of a controller (or of a single handler method, which takes precedence). <br>
+ * - all durations are in seconds; a negative value leaves the directive out <br>
+ * - <code>privateCache</code> keeps the response out of shared caches (proxies); otherwise it is marked <code>public</code> and varies on <code>Authorization</code>, so that a shared cache never hands one
+ * caller's representation to another
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CachePolicy {
+
+    int maxAge() default 0;
+
+    /**
+     * - note: max-age for shared caches only (<code>s-maxage</code>)
+     */
+    int sharedMaxAge() default -1;
+
+    int staleWhileRevalidate() default -1;
+
+    boolean privateCache() default false;
+
+    /**
+     * - note: forbids serving a stale response once <code>max-age</code> has passed (other than within <code>stale-while-revalidate</code>)
+     */
+    boolean mustRevalidate() default false;
+
+}
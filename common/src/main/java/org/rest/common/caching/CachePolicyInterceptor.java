@@ -0,0 +1,85 @@
+package org.rest.common.caching;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import com.google.common.net.HttpHeaders;
+
+/**
+ * Emits the <code>Cache-Control</code> header declared by {@link CachePolicy} on GET (and HEAD) requests. <br>
+ * - only successful responses (200) and their revalidations (304) get the policy - an error (404, 403, 409, ...) must never become cacheable <br>
+ * - the header is set after the handler has run, once the status is known; the 304s answered by the {@link VersionETagInterceptor} before the handler runs get it on completion <br>
+ * - note: the body is still buffered by the {@link ETagContentFilter} at that point; a response that was already committed (streamed) goes out without a policy
+ */
+@Component
+public class CachePolicyInterceptor extends HandlerInterceptorAdapter {
+
+    public CachePolicyInterceptor() {
+        super();
+    }
+
+    // API
+
+    @Override
+    public final void postHandle(final HttpServletRequest request, final HttpServletResponse response, final Object handler, final ModelAndView modelAndView) {
+        final int status = response.getStatus();
+        if (status == HttpServletResponse.SC_OK || status == HttpServletResponse.SC_NOT_MODIFIED) {
+            applyCachePolicy(request, response, handler);
+        }
+    }
+
+    @Override
+    public final void afterCompletion(final HttpServletRequest request, final HttpServletResponse response, final Object handler, final Exception ex) {
+        if (ex == null && response.getStatus() == HttpServletResponse.SC_NOT_MODIFIED && !response.containsHeader(HttpHeaders.CACHE_CONTROL)) {
+            applyCachePolicy(request, response, handler);
+        }
+    }
+
+    // util
+
+    final void applyCachePolicy(final HttpServletRequest request, final HttpServletResponse response, final Object handler) {
+        if (!(handler instanceof HandlerMethod) || !("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod())) || response.isCommitted()) {
+            return;
+        }
+
+        final CachePolicy cachePolicy = cachePolicyOf((HandlerMethod) handler);
+        if (cachePolicy != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControlOf(cachePolicy));
+            if (!cachePolicy.privateCache()) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION);
+            }
+        }
+    }
+
+    static CachePolicy cachePolicyOf(final HandlerMethod handlerMethod) {
+        final CachePolicy methodPolicy = AnnotationUtils.findAnnotation(handlerMethod.getMethod(), CachePolicy.class);
+        if (methodPolicy != null) {
+            return methodPolicy;
+        }
+        return AnnotationUtils.findAnnotation(handlerMethod.getBeanType(), CachePolicy.class);
+    }
+
+    static String cacheControlOf(final CachePolicy cachePolicy) {
+        final StringBuilder cacheControl = new StringBuilder(cachePolicy.privateCache() ? "private" : "public");
+        if (cachePolicy.maxAge() >= 0) {
+            cacheControl.append(", max-age=").append(cachePolicy.maxAge());
+        }
+        if (!cachePolicy.privateCache() && cachePolicy.sharedMaxAge() >= 0) {
+            cacheControl.append(", s-maxage=").append(cachePolicy.sharedMaxAge());
+        }
+        if (cachePolicy.staleWhileRevalidate() >= 0) {
+            cacheControl.append(", stale-while-revalidate=").append(cachePolicy.staleWhileRevalidate());
+        }
+        if (cachePolicy.mustRevalidate()) {
+            cacheControl.append(", must-revalidate");
+        }
+        return cacheControl.toString();
+    }
+
+}
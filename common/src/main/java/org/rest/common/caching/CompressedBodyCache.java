@@ -0,0 +1,139 @@
+package org.rest.common.caching;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+
+/**
+ * Negotiates the <code>Content-Encoding</code> of a response and keeps a bounded cache of already compressed bodies, keyed by what identifies the uncompressed body (the request, its variant headers and the ETag - see <code>ETagContentFilter</code>) and the encoding. <br>
+ * - bodies below <code>web.compression.minSize</code> are not worth compressing and are sent as they are
+ */
+@Component
+public class CompressedBodyCache {
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    @Value("${web.compression:true}")
+    private boolean enabled;
+
+    @Value("${web.compression.minSize:1024}")
+    private int minSize;
+
+    @Value("${web.compression.cache.maxBytes:8388608}")
+    private long maxBytes;
+
+    private Cache<String, byte[]> cache;
+
+    public CompressedBodyCache() {
+        super();
+    }
+
+    // API
+
+    /**
+     * @return the encoding to use for a body of the given size, or null if it should go out uncompressed
+     */
+    public final String encodingFor(final String acceptEncoding, final int size) {
+        if (!enabled || size < minSize) {
+            return null;
+        }
+        return negotiate(acceptEncoding);
+    }
+
+    public final boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * - note: the result is only cached when there is a key for the body - without one (no ETag), there is no safe key for it
+     *
+     * @param bodyKey identifies the uncompressed body - it must change whenever the bytes can differ
+     */
+    public final byte[] compress(final String bodyKey, final String encoding, final byte[] body) throws IOException {
+        if (bodyKey == null) {
+            return compress(encoding, body);
+        }
+
+        final String key = bodyKey + '|' + encoding;
+        final byte[] cached = cache().getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        final byte[] compressed = compress(encoding, body);
+        if (compressed.length <= maxBytes) {
+            cache().put(key, compressed);
+        }
+        return compressed;
+    }
+
+    // util
+
+    static byte[] compress(final String encoding, final byte[] body) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(body.length / 4, 64));
+        final DeflaterOutputStream out = GZIP.equals(encoding) ? new GZIPOutputStream(compressed) : new DeflaterOutputStream(compressed);
+        try {
+            out.write(body);
+        } finally {
+            out.close();
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * - note: gzip is preferred over deflate; an encoding with <code>q=0</code> is refused
+     */
+    static String negotiate(final String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        boolean deflate = false;
+        for (final String candidate : acceptEncoding.split(",")) {
+            final String[] parts = candidate.trim().split(";");
+            final String coding = parts[0].trim().toLowerCase();
+            if (parts.length > 1 && isRefused(parts[1])) {
+                continue;
+            }
+            if (coding.equals(GZIP) || coding.equals("x-gzip") || coding.equals("*")) {
+                return GZIP;
+            }
+            if (coding.equals(DEFLATE)) {
+                deflate = true;
+            }
+        }
+        return deflate ? DEFLATE : null;
+    }
+
+    private static boolean isRefused(final String parameter) {
+        final String trimmed = parameter.trim();
+        if (!trimmed.startsWith("q=")) {
+            return false;
+        }
+        try {
+            return Float.parseFloat(trimmed.substring(2)) <= 0;
+        } catch (final NumberFormatException numberFormatEx) {
+            return false;
+        }
+    }
+
+    private synchronized Cache<String, byte[]> cache() {
+        if (cache == null) {
+            cache = CacheBuilder.newBuilder().maximumWeight(maxBytes).weigher(new Weigher<String, byte[]>() {
+                @Override
+                public final int weigh(final String key, final byte[] value) {
+                    return value.length;
+                }
+            }).build();
+        }
+        return cache;
+    }
+
+}
@@ -3,18 +3,21 @@ package org.rest.common.caching;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
-import java.math.BigInteger;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 
 public final class ETagComputeUtils {
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     private ETagComputeUtils() {
         throw new AssertionError();
     }
 
     // API
 
+    /**
+     * @deprecated Java serialization of a whole entity graph is far too expensive just to get bytes to hash - entities are tagged from their persistent version instead (see {@link EntityVersionRegistry#getVersionETag})
+     */
+    @Deprecated
     public static byte[] serialize(final Object obj) throws IOException {
         byte[] byteArray = null;
         ByteArrayOutputStream baos = null;
@@ -34,18 +37,89 @@ public final class ETagComputeUtils {
     }
 
     public static String getMd5Digest(final byte[] bytes) {
-        final MessageDigest md;
-        try {
-            md = MessageDigest.getInstance("MD5");
-        } catch (final NoSuchAlgorithmException e) {
-            throw new RuntimeException("MD5 cryptographic algorithm is not available.", e);
+        final ETagStrategy.Digest digest = ETagStrategies.MD5.digest();
+        digest.update(bytes, 0, bytes.length);
+        return toHexString(digest.digest());
+    }
+
+    /**
+     * Weak comparison of an <code>If-None-Match</code> header against the current ETag; handles lists of ETags and <code>*</code>.
+     */
+    public static boolean matches(final String ifNoneMatch, final String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        final String opaqueTag = stripWeakPrefix(etag);
+        for (final String candidate : ifNoneMatch.split(",")) {
+            final String trimmed = candidate.trim();
+            if (trimmed.equals("*") || stripWeakPrefix(trimmed).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Strong comparison of an <code>If-Match</code> header against the current ETag; handles lists of ETags and <code>*</code>. <br>
+     * - a weak ETag never matches (RFC 7232, 3.1) <br>
+     * - note: the content coding suffix added by {@link ETagContentFilter} is ignored - the coding does not change the entity the tag identifies
+     */
+    public static boolean matchesStrongly(final String ifMatch, final String etag) {
+        if (ifMatch == null || etag == null || etag.startsWith("W/")) {
+            return false;
+        }
+        for (final String candidate : ifMatch.split(",")) {
+            final String trimmed = candidate.trim();
+            if (trimmed.equals("*") || (!trimmed.startsWith("W/") && stripContentCoding(trimmed).equals(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Weak comparison of an <code>If-None-Match</code> header against an ETag set by the application, before {@link ETagContentFilter} adds the content coding suffix to it
+     */
+    public static boolean matchesAnyCoding(final String ifNoneMatch, final String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        final String opaqueTag = stripWeakPrefix(etag);
+        for (final String candidate : ifNoneMatch.split(",")) {
+            final String trimmed = candidate.trim();
+            if (trimmed.equals("*") || stripContentCoding(stripWeakPrefix(trimmed)).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * - note: zero padded, two lowercase digits per byte
+     */
+    public static String toHexString(final byte[] digest) {
+        final char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[2 * i] = HEX_DIGITS[(digest[i] >> 4) & 0x0f];
+            hex[2 * i + 1] = HEX_DIGITS[digest[i] & 0x0f];
+        }
+        return new String(hex);
+    }
+
+    // util
+
+    private static String stripWeakPrefix(final String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static String stripContentCoding(final String etag) {
+        for (final String coding : new String[] { CompressedBodyCache.GZIP, CompressedBodyCache.DEFLATE }) {
+            final String suffix = '-' + coding + '"';
+            if (etag.endsWith(suffix)) {
+                return etag.substring(0, etag.length() - suffix.length()) + '"';
+            }
         }
-        final byte[] messageDigest = md.digest(bytes);
-        final BigInteger number = new BigInteger(1, messageDigest);
-        // prepend a zero to get a "proper" MD5 hash value
-        final StringBuffer sb = new StringBuffer('0');
-        sb.append(number.toString(16));
-        return sb.toString();
+        return etag;
     }
 
-}
\ No newline at end of file
+}
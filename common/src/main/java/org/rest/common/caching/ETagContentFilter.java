@@ -1,9 +1,7 @@
 package org.rest.common.caching;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.Calendar;
-import java.util.Date;
+import java.util.Collection;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -15,54 +13,253 @@ import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.rest.common.caching.RepresentationCache.CachedRepresentation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
 
+import com.google.common.collect.Lists;
+import com.google.common.net.HttpHeaders;
+
+/**
+ * Computes a strong ETag over the response body and answers a matching <code>If-None-Match</code> with a 304. <br>
+ * - the body is digested while it is being written; only responses up to <code>bufferThreshold</code> bytes are held in memory <br>
+ * - larger responses are streamed straight through and go out without an ETag (the header would have to follow the body, which Servlet 3.0 cannot do) <br>
+ * - when the {@link RepresentationCache} is enabled, GETs are served from it and buffered 200 responses are stored in it <br>
+ * - response buffers come from a {@link ByteBufferPool} and are returned once the response is written <br>
+ * - buffered 200 responses are compressed as negotiated by <code>Accept-Encoding</code> (see {@link CompressedBodyCache}); streamed responses are not
+ */
+@Component("etagContentFilter")
 public class ETagContentFilter implements Filter {
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
+    static final String ETAG = "ETag";
+    static final String BUFFER_THRESHOLD_PARAM = "bufferThreshold";
+    static final int DEFAULT_BUFFER_THRESHOLD = 64 * 1024;
+
+    private int bufferThreshold = DEFAULT_BUFFER_THRESHOLD;
+
+    @Autowired(required = false)
+    private RepresentationCache representationCache;
+
+    @Autowired(required = false)
+    private CompressedBodyCache compressedBodyCache;
+
+    @Autowired(required = false)
+    private ByteBufferPool bufferPool = new ByteBufferPool();
+
+    private ETagStrategy etagStrategy = ETagStrategies.MD5;
+
     @Override
     public void doFilter(final ServletRequest req, final ServletResponse res, final FilterChain chain) throws IOException, ServletException {
         final HttpServletRequest servletRequest = (HttpServletRequest) req;
         final HttpServletResponse servletResponse = (HttpServletResponse) res;
 
-        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        final ETagResponseWrapper wrappedResponse = new ETagResponseWrapper(servletResponse, baos);
-        chain.doFilter(servletRequest, wrappedResponse);
-
-        final byte[] bytes = baos.toByteArray();
-
-        final String token = '"' + ETagComputeUtils.getMd5Digest(bytes) + '"';
-        servletResponse.setHeader("ETag", token); // always store the ETag in the header
-
-        final String previousToken = servletRequest.getHeader("If-None-Match");
-        if (previousToken != null && previousToken.equals(token)) { // compare previous token with the current one
-            logger.debug("ETag match: returning 304 Not Modified");
-            servletResponse.sendError(HttpServletResponse.SC_NOT_MODIFIED);
-            servletResponse.setHeader("Last-Modified", servletRequest.getHeader("If-Modified-Since")); // re-use original last modified time
-        } else {
-            // first time through - set last modified time to now
-            final Calendar cal = Calendar.getInstance();
-            cal.set(Calendar.MILLISECOND, 0);
-            final Date lastModified = cal.getTime();
-            servletResponse.setDateHeader("Last-Modified", lastModified.getTime());
-
-            logger.debug("Writing body content");
-            servletResponse.setContentLength(bytes.length);
-            final ServletOutputStream sos = servletResponse.getOutputStream();
-            sos.write(bytes);
-            sos.flush();
-            sos.close();
+        final String cacheKey = representationCache == null ? null : representationCache.keyFor(servletRequest);
+        if (cacheKey != null) {
+            final CachedRepresentation cached = representationCache.get(cacheKey);
+            if (cached != null) {
+                logger.debug("Serving {} from the representation cache", cacheKey);
+                writeCached(servletRequest, servletResponse, cached);
+                return;
+            }
+        }
+
+        final ETagResponseStream stream = new ETagResponseStream(servletResponse, etagStrategy.digest(), bufferThreshold, bufferPool);
+        try {
+            final ETagResponseWrapper wrappedResponse = new ETagResponseWrapper(servletResponse, stream);
+            chain.doFilter(servletRequest, wrappedResponse);
+            wrappedResponse.finish();
+
+            if (stream.isStreaming()) {
+                logger.debug("Response exceeded {} bytes and was streamed - no ETag", bufferThreshold);
+                stream.close();
+                return;
+            }
+
+            if (servletResponse.getStatus() != HttpServletResponse.SC_OK) {
+                writeBody(servletResponse, stream);
+                return;
+            }
+            final String encoding = encodingFor(servletRequest, servletResponse, stream.size());
+
+            if (servletResponse.containsHeader(ETAG)) {
+                // the application has already tagged the response (and possibly answered the conditional request itself)
+                final String applicationToken = servletResponse.getHeader(ETAG);
+                if (cacheKey != null) {
+                    store(cacheKey, servletRequest, servletResponse, stream, applicationToken);
+                }
+                servletResponse.setHeader(ETAG, encodedToken(applicationToken, encoding));
+                if (encoding == null) {
+                    writeBody(servletResponse, stream);
+                } else {
+                    writeBody(servletResponse, stream.toByteArray(), compressionKeyFor(servletRequest, servletResponse, applicationToken), encoding);
+                }
+                return;
+            }
+
+            final String token = '"' + ETagComputeUtils.toHexString(stream.digest()) + '"';
+            final String encodedToken = encodedToken(token, encoding);
+            servletResponse.setHeader(ETAG, encodedToken); // always store the ETag in the header
+            if (cacheKey != null) {
+                store(cacheKey, servletRequest, servletResponse, stream, token);
+            }
+
+            final String previousToken = servletRequest.getHeader("If-None-Match");
+            if (ETagComputeUtils.matches(previousToken, encodedToken)) { // compare previous token with the current one
+                logger.debug("ETag match: returning 304 Not Modified");
+                servletResponse.sendError(HttpServletResponse.SC_NOT_MODIFIED);
+            } else {
+                // - note: Last-Modified is left to the application (see AbstractController), which knows when the data actually changed
+                logger.debug("Writing body content");
+                if (encoding == null) {
+                    writeBody(servletResponse, stream);
+                } else {
+                    writeBody(servletResponse, stream.toByteArray(), compressionKeyFor(servletRequest, servletResponse, token), encoding);
+                }
+            }
+        } finally {
+            stream.release();
         }
     }
 
     @Override
     public void init(final FilterConfig filterConfig) {
-        //
+        final String bufferThresholdParam = filterConfig.getInitParameter(BUFFER_THRESHOLD_PARAM);
+        if (bufferThresholdParam != null) {
+            bufferThreshold = Integer.parseInt(bufferThresholdParam.trim());
+        }
+    }
+
+    @Value("${web.etag.strategy:md5}")
+    public void setEtagStrategy(final String etagStrategyName) {
+        etagStrategy = ETagStrategies.forName(etagStrategyName);
     }
 
     @Override
     public void destroy() {
         //
     }
+
+    // util
+
+    final void store(final String cacheKey, final HttpServletRequest servletRequest, final HttpServletResponse servletResponse, final ETagResponseStream stream, final String token) {
+        final Collection<String> links = Lists.newArrayList(servletResponse.getHeaders(HttpHeaders.LINK));
+        representationCache.put(cacheKey, servletRequest, new CachedRepresentation(stream.toByteArray(), token, servletResponse.getContentType(), links, servletResponse.getHeader(HttpHeaders.CACHE_CONTROL), null));
+    }
+
+    final void writeCached(final HttpServletRequest servletRequest, final HttpServletResponse servletResponse, final CachedRepresentation cached) throws IOException {
+        final String encoding = encodingFor(servletRequest, servletResponse, cached.body.length);
+        final String encodedToken = encodedToken(cached.etag, encoding);
+        servletResponse.setHeader(ETAG, encodedToken);
+        for (final String link : cached.links) {
+            servletResponse.addHeader(HttpHeaders.LINK, link);
+        }
+        if (cached.cacheControl != null) {
+            servletResponse.setHeader(HttpHeaders.CACHE_CONTROL, cached.cacheControl);
+            if (cached.cacheControl.startsWith("public")) {
+                servletResponse.addHeader(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION);
+            }
+        }
+        final String ifNoneMatch = servletRequest.getHeader("If-None-Match");
+        if (ETagComputeUtils.matches(ifNoneMatch, encodedToken)) {
+            servletResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        final long lastModified = representationCache.lastModifiedOf(cached);
+        if (lastModified >= 0) {
+            servletResponse.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+            if (ifNoneMatch == null && servletRequest.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE) >= lastModified) {
+                servletResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+
+        if (cached.contentType != null) {
+            servletResponse.setContentType(cached.contentType);
+        }
+        writeBody(servletResponse, cached.body, compressionKeyFor(servletRequest, servletResponse, cached.etag), encoding);
+    }
+
+    /**
+     * @param compressionKey the key of the compressed body in the {@link CompressedBodyCache} (see {@link #compressionKeyFor}), or null to compress without caching
+     */
+    final void writeBody(final HttpServletResponse servletResponse, final byte[] body, final String compressionKey, final String encoding) throws IOException {
+        if (body.length == 0) {
+            return;
+        }
+        byte[] content = body;
+        if (encoding != null) {
+            content = compressedBodyCache.compress(compressionKey, encoding, body);
+            servletResponse.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+        }
+        servletResponse.setContentLength(content.length);
+        final ServletOutputStream sos = servletResponse.getOutputStream();
+        sos.write(content);
+        sos.flush();
+        sos.close();
+    }
+
+    /**
+     * @return the negotiated content encoding, or null if the body goes out uncompressed
+     */
+    final String encodingFor(final HttpServletRequest servletRequest, final HttpServletResponse servletResponse, final int size) {
+        if (compressedBodyCache == null || !compressedBodyCache.isEnabled() || servletResponse.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+            return null;
+        }
+        servletResponse.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        return compressedBodyCache.encodingFor(servletRequest.getHeader(HttpHeaders.ACCEPT_ENCODING), size);
+    }
+
+    /**
+     * Identifies the uncompressed body: the request (URI and query string), the headers the response varies on, and its ETag. <br>
+     * - the ETag alone is not enough - an application tag (see {@link EntityVersionRegistry}) identifies a version of the data, not the resource it was served from, so two resources can share it
+     *
+     * @return the key, or null if the body has no ETag
+     */
+    static String compressionKeyFor(final HttpServletRequest servletRequest, final HttpServletResponse servletResponse, final String token) {
+        if (token == null) {
+            return null;
+        }
+
+        final StringBuilder key = new StringBuilder(servletRequest.getRequestURI());
+        if (servletRequest.getQueryString() != null) {
+            key.append('?').append(servletRequest.getQueryString());
+        }
+        key.append('|').append(servletRequest.getHeader(HttpHeaders.ACCEPT));
+        for (final String vary : servletResponse.getHeaders(HttpHeaders.VARY)) {
+            for (final String header : vary.split(",")) {
+                final String name = header.trim();
+                if (!name.isEmpty() && !name.equalsIgnoreCase(HttpHeaders.ACCEPT) && !name.equalsIgnoreCase(HttpHeaders.ACCEPT_ENCODING)) {
+                    key.append('|').append(name).append('=').append(servletRequest.getHeader(name));
+                }
+            }
+        }
+        key.append('|').append(token);
+        return key.toString();
+    }
+
+    /**
+     * - note: a strong ETag identifies the exact bytes, so every content encoding gets its own; weak ETags are shared between encodings
+     */
+    static String encodedToken(final String token, final String encoding) {
+        if (encoding == null || token == null || token.startsWith("W/") || !token.endsWith("\"")) {
+            return token;
+        }
+        return token.substring(0, token.length() - 1) + '-' + encoding + '"';
+    }
+
+    final void writeBody(final HttpServletResponse servletResponse, final ETagResponseStream stream) throws IOException {
+        if (stream.size() == 0) {
+            return;
+        }
+        servletResponse.setContentLength(stream.size());
+        final ServletOutputStream sos = servletResponse.getOutputStream();
+        stream.writeBufferTo(sos);
+        sos.flush();
+        sos.close();
+    }
+
 }
\ No newline at end of file
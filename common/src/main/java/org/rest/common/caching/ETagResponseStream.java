@@ -2,44 +2,98 @@ package org.rest.common.caching;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
 
+/**
+ * Output stream that digests the response body as it is written. <br>
+ * - the body is held in a bounded buffer, so that it can still be replaced by a 304 once the ETag is known <br>
+ * - once the body grows past the threshold, the buffered content is flushed and the rest of the body is streamed straight through to the client <br>
+ * - the buffer is taken from a {@link ByteBufferPool} (growing through its size classes) and has to be given back with {@link #release()} once the response is written
+ */
 public class ETagResponseStream extends ServletOutputStream {
+    private static final int COPY_CHUNK_SIZE = 4096;
+    private static final ThreadLocal<byte[]> COPY_CHUNK = new ThreadLocal<byte[]>() {
+        @Override
+        protected final byte[] initialValue() {
+            return new byte[COPY_CHUNK_SIZE];
+        }
+    };
+
     private boolean closed = false;
+    private boolean streaming = false;
+
+    private final HttpServletResponse response;
+    private final ETagStrategy.Digest digest;
+    private final ByteBufferPool pool;
+    private final int threshold;
+    private ByteBuffer buffer = null;
     private OutputStream stream = null;
 
-    public ETagResponseStream(final OutputStream streamToSet) {
+    public ETagResponseStream(final HttpServletResponse responseToSet, final ETagStrategy.Digest digestToSet, final int thresholdToSet, final ByteBufferPool poolToSet) {
         super();
-        stream = streamToSet;
+
+        response = responseToSet;
+        digest = digestToSet;
+        threshold = thresholdToSet;
+        pool = poolToSet;
     }
 
+    // API
+
     @Override
     public void close() throws IOException {
         if (!closed) {
-            stream.close();
+            if (streaming) {
+                stream.flush();
+            }
             closed = true;
         }
     }
 
+    /**
+     * - note: while the body is still buffered, flushing is a no-op - committing the response here would make the 304 check impossible
+     */
     @Override
     public void flush() throws IOException {
-        if (!closed) {
+        if (!closed && streaming) {
             stream.flush();
         }
     }
 
     @Override
     public void write(final int b) throws IOException {
-        if (!closed) {
+        if (closed) {
+            return;
+        }
+        if (!streaming && size() + 1 > threshold) {
+            startStreaming();
+        }
+        if (streaming) {
             stream.write((byte) b);
+        } else {
+            digest.update((byte) b);
+            ensureCapacity(1);
+            buffer.put((byte) b);
         }
     }
 
     @Override
     public void write(final byte b[], final int off, final int len) throws IOException {
-        if (!closed) {
+        if (closed) {
+            return;
+        }
+        if (!streaming && size() + len > threshold) {
+            startStreaming();
+        }
+        if (streaming) {
             stream.write(b, off, len);
+        } else {
+            digest.update(b, off, len);
+            ensureCapacity(len);
+            buffer.put(b, off, len);
         }
     }
 
@@ -48,12 +102,105 @@ public class ETagResponseStream extends ServletOutputStream {
         write(b, 0, b.length);
     }
 
+    /**
+     * Gives up on buffering - whatever was buffered so far is written out and the rest of the body goes directly to the client.
+     */
+    public void startStreaming() throws IOException {
+        if (streaming) {
+            return;
+        }
+        streaming = true;
+        stream = response.getOutputStream();
+        writeBufferTo(stream);
+        release();
+    }
+
     public boolean closed() {
         return closed;
     }
 
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * @return the digest of the buffered body; only meaningful while the body is not streamed
+     */
+    public byte[] digest() {
+        return digest.digest();
+    }
+
+    public int threshold() {
+        return threshold;
+    }
+
+    public int size() {
+        return buffer == null ? 0 : buffer.position();
+    }
+
+    public void writeBufferTo(final OutputStream out) throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        if (buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+            return;
+        }
+
+        final byte[] chunk = COPY_CHUNK.get();
+        final ByteBuffer content = (ByteBuffer) buffer.duplicate().flip();
+        while (content.hasRemaining()) {
+            final int length = Math.min(chunk.length, content.remaining());
+            content.get(chunk, 0, length);
+            out.write(chunk, 0, length);
+        }
+    }
+
+    /**
+     * @return a copy of the buffered body
+     */
+    public byte[] toByteArray() {
+        final byte[] copy = new byte[size()];
+        if (buffer != null) {
+            ((ByteBuffer) buffer.duplicate().flip()).get(copy);
+        }
+        return copy;
+    }
+
+    /**
+     * Gives the buffer back to the pool; the buffered body is gone afterwards.
+     */
+    public void release() {
+        if (buffer != null) {
+            pool.release(buffer);
+            buffer = null;
+        }
+    }
+
     public void reset() {
         // noop
     }
 
-}
\ No newline at end of file
+    // util
+
+    /**
+     * - note: grows into the next size class that fits (never past the threshold) and gives the old buffer back
+     */
+    private void ensureCapacity(final int len) {
+        if (buffer == null) {
+            buffer = pool.acquire(Math.min(Math.max(len, ByteBufferPool.SIZE_CLASSES[0]), threshold));
+            return;
+        }
+        if (buffer.remaining() >= len) {
+            return;
+        }
+
+        final int required = buffer.position() + len;
+        final ByteBuffer grown = pool.acquire(Math.min(Math.max(required, buffer.capacity() * 4), Math.max(required, threshold)));
+        buffer.flip();
+        grown.put(buffer);
+        pool.release(buffer);
+        buffer = grown;
+    }
+
+}
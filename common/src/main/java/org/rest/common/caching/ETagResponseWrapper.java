@@ -1,7 +1,6 @@
 package org.rest.common.caching;
 
 import java.io.IOException;
-import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 
@@ -10,23 +9,19 @@ import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpServletResponseWrapper;
 
 public class ETagResponseWrapper extends HttpServletResponseWrapper {
-    private ServletOutputStream stream;
+    private ETagResponseStream stream;
     private PrintWriter writer;
-    private OutputStream buffer;
 
-    public ETagResponseWrapper(final HttpServletResponse responseToSet, final OutputStream bufferToSet) {
+    public ETagResponseWrapper(final HttpServletResponse responseToSet, final ETagResponseStream streamToSet) {
         super(responseToSet);
 
-        buffer = bufferToSet;
+        stream = streamToSet;
     }
 
     // API
 
     @Override
     public ServletOutputStream getOutputStream() {
-        if (stream == null) {
-            stream = new ETagResponseStream(buffer);
-        }
         return stream;
     }
 
@@ -40,7 +35,38 @@ public class ETagResponseWrapper extends HttpServletResponseWrapper {
 
     @Override
     public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
         stream.flush();
     }
 
-}
\ No newline at end of file
+    /**
+     * - note: a body that is known up front to be larger than the buffer is streamed directly
+     */
+    @Override
+    public void setContentLength(final int len) {
+        super.setContentLength(len);
+        if (len > stream.threshold()) {
+            try {
+                stream.startStreaming();
+            } catch (final IOException ioEx) {
+                throw new IllegalStateException(ioEx);
+            }
+        }
+    }
+
+    /**
+     * Pushes any content still sitting in the writer down into the stream; to be called once the chain has finished.
+     */
+    public void finish() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    public ETagResponseStream getResponseStream() {
+        return stream;
+    }
+
+}
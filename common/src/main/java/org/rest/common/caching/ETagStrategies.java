@@ -0,0 +1,132 @@
+package org.rest.common.caching;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * The available {@link ETagStrategy} implementations: <br>
+ * - <code>md5</code> and <code>sha1</code> - cryptographic, with the {@link MessageDigest} kept per thread instead of being looked up on each request <br>
+ * - <code>murmur3</code> - non-cryptographic 128 bit Murmur3; a lot cheaper, and collision resistance against an attacker is not needed for an ETag
+ */
+public final class ETagStrategies {
+
+    public static final ETagStrategy MD5 = new MessageDigestStrategy("md5", "MD5");
+    public static final ETagStrategy SHA1 = new MessageDigestStrategy("sha1", "SHA-1");
+    public static final ETagStrategy MURMUR3 = new HashFunctionStrategy("murmur3", Hashing.murmur3_128());
+
+    private ETagStrategies() {
+        throw new AssertionError();
+    }
+
+    // API
+
+    public static ETagStrategy forName(final String name) {
+        for (final ETagStrategy strategy : new ETagStrategy[] { MD5, SHA1, MURMUR3 }) {
+            if (strategy.name().equalsIgnoreCase(name.trim())) {
+                return strategy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown ETag strategy: " + name);
+    }
+
+    // util
+
+    static final class MessageDigestStrategy implements ETagStrategy {
+        private final String name;
+        private final String algorithm;
+        private final ThreadLocal<MessageDigestAdapter> digests = new ThreadLocal<MessageDigestAdapter>() {
+            @Override
+            protected final MessageDigestAdapter initialValue() {
+                try {
+                    return new MessageDigestAdapter(MessageDigest.getInstance(algorithm));
+                } catch (final NoSuchAlgorithmException e) {
+                    throw new IllegalStateException(algorithm + " cryptographic algorithm is not available.", e);
+                }
+            }
+        };
+
+        MessageDigestStrategy(final String nameToSet, final String algorithmToSet) {
+            name = nameToSet;
+            algorithm = algorithmToSet;
+        }
+
+        @Override
+        public final String name() {
+            return name;
+        }
+
+        @Override
+        public final Digest digest() {
+            final MessageDigestAdapter digest = digests.get();
+            digest.messageDigest.reset();
+            return digest;
+        }
+    }
+
+    static final class MessageDigestAdapter implements ETagStrategy.Digest {
+        final MessageDigest messageDigest;
+
+        MessageDigestAdapter(final MessageDigest messageDigestToSet) {
+            messageDigest = messageDigestToSet;
+        }
+
+        @Override
+        public final void update(final byte b) {
+            messageDigest.update(b);
+        }
+
+        @Override
+        public final void update(final byte[] b, final int off, final int len) {
+            messageDigest.update(b, off, len);
+        }
+
+        @Override
+        public final byte[] digest() {
+            return messageDigest.digest();
+        }
+    }
+
+    /**
+     * - note: a Guava {@link Hasher} cannot be reset, so a new (small) one is created per body
+     */
+    static final class HashFunctionStrategy implements ETagStrategy {
+        private final String name;
+        private final HashFunction hashFunction;
+
+        HashFunctionStrategy(final String nameToSet, final HashFunction hashFunctionToSet) {
+            name = nameToSet;
+            hashFunction = hashFunctionToSet;
+        }
+
+        @Override
+        public final String name() {
+            return name;
+        }
+
+        @Override
+        public final Digest digest() {
+            final Hasher hasher = hashFunction.newHasher();
+            return new Digest() {
+                @Override
+                public final void update(final byte b) {
+                    hasher.putByte(b);
+                }
+
+                @Override
+                public final void update(final byte[] b, final int off, final int len) {
+                    hasher.putBytes(b, off, len);
+                }
+
+                @Override
+                public final byte[] digest() {
+                    return hasher.hash().asBytes();
+                }
+            };
+        }
+    }
+
+}
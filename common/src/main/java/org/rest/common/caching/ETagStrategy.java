@@ -0,0 +1,35 @@
+package org.rest.common.caching;
+
+/**
+ * Hashing used to compute ETags over response bodies. <br>
+ * - implementations are stateless and shared; the {@link Digest} they hand out is bound to the calling thread and is reused across requests
+ */
+public interface ETagStrategy {
+
+    /**
+     * @return the name the strategy is selected by (<code>web.etag.strategy</code>)
+     */
+    String name();
+
+    /**
+     * @return a reset digest, owned by the current thread until {@link Digest#digest()} is called
+     */
+    Digest digest();
+
+    /**
+     * Incremental hash over the response body.
+     */
+    interface Digest {
+
+        void update(final byte b);
+
+        void update(final byte[] b, final int off, final int len);
+
+        /**
+         * - note: completes the hash; the digest must not be updated afterwards
+         */
+        byte[] digest();
+
+    }
+
+}
@@ -0,0 +1,273 @@
+package org.rest.common.caching;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.rest.common.persistence.event.AfterEntitiesCreatedEvent;
+import org.rest.common.persistence.event.AfterEntitiesDeletedEvent;
+import org.rest.common.persistence.event.AfterEntitiesUpdatedEvent;
+import org.rest.common.persistence.event.AfterEntityCreatedEvent;
+import org.rest.common.persistence.event.AfterEntityDeleteEvent;
+import org.rest.common.persistence.event.AfterEntityUpdateEvent;
+import org.rest.common.persistence.model.IEntity;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Keeps in-memory version counters for entities, driven by the persistence events. <br>
+ * - each entity instance has its own counter (bumped on update and delete); each entity type has a counter bumped on any change to the type <br>
+ * - counters are bumped when the event is published and again when the surrounding transaction completes, so that a reader never pairs a version with data that predates the commit <br>
+ * - the persistent versions read by the controllers are recorded, with the counter of the entity at the time, so that a conditional GET can be answered without reading the entity again <br>
+ * - each entity type also has a modification clock (<code>Last-Modified</code>), in whole seconds, that never runs ahead of the current time; it starts at startup time, so a restart can only move it forward. Two changes within the same second share a date - telling them apart is left to the ETag (see {@link #isSettled}) <br>
+ * - note: the counters live in this JVM only - behind a load balancer, this is only safe with sticky sessions
+ */
+@Component
+public class EntityVersionRegistry implements ApplicationListener<ApplicationEvent> {
+
+    /** per entity type */
+    static final int MAX_RECORDED_VERSIONS = 10000;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    private final ConcurrentMap<Class<?>, TypeVersions> versions = new ConcurrentHashMap<Class<?>, TypeVersions>();
+
+    public EntityVersionRegistry() {
+        super();
+    }
+
+    // API
+
+    /**
+     * - note: the version of the entity itself, combined with the versions of the types its representation depends on
+     */
+    public final String getETag(final Class<? extends IEntity> clazz, final long id, final Class<? extends IEntity>[] dependsOn, final String variant) {
+        final TypeVersions typeVersions = versionsOf(clazz);
+        final StringBuilder tag = new StringBuilder("W/\"");
+        tag.append(epoch).append('.').append(typeVersions.generation.get()).append('.').append(typeVersions.versionOf(id));
+        for (final Class<? extends IEntity> dependency : dependsOn) {
+            tag.append('.').append(versionsOf(dependency).typeVersion.get());
+        }
+        if (variant != null) {
+            tag.append('.').append(Integer.toHexString(variant.hashCode()));
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * Strong ETag of a single resource whose entity carries a persistent version (e.g. <code>"3"</code>) - a conditional update (<code>If-Match</code>) is compared against the version it starts with, and nothing else. <br>
+     * - the versions of the types the representation depends on are appended, together with the epoch, since those counters start over with every restart; they only validate the representation for a conditional GET (<code>If-None-Match</code>)
+     */
+    public final String getVersionETag(final long version, final Class<? extends IEntity>[] dependsOn) {
+        final StringBuilder tag = new StringBuilder("\"").append(version);
+        if (dependsOn.length > 0) {
+            tag.append('.').append(epoch);
+            for (final Class<? extends IEntity> dependency : dependsOn) {
+                tag.append('.').append(versionsOf(dependency).typeVersion.get());
+            }
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * - note: for a single resource (id not null) this is the version of the entity; for a collection (id null) it is the version of the whole type; both include the versions of the types it depends on
+     */
+    public final String getStamp(final Class<? extends IEntity> clazz, final Long id, final Class<? extends IEntity>[] dependsOn) {
+        final TypeVersions typeVersions = versionsOf(clazz);
+        final StringBuilder stamp = new StringBuilder();
+        stamp.append(typeVersions.generation.get()).append('.');
+        stamp.append(id == null ? typeVersions.typeVersion.get() : typeVersions.versionOf(id));
+        for (final Class<? extends IEntity> dependency : dependsOn) {
+            stamp.append('.').append(versionsOf(dependency).typeVersion.get());
+        }
+        return stamp.toString();
+    }
+
+    /**
+     * @return the stamp of a single entity - it changes with every change to the entity (or to all the entities of the type) made through this JVM
+     */
+    public final String getEntityStamp(final Class<? extends IEntity> clazz, final long id) {
+        return versionsOf(clazz).stampOf(id);
+    }
+
+    /**
+     * Remembers the persistent version of an entity, as read by a request that took the stamp of the entity (see {@link #getEntityStamp}) before reading it - until the entity changes, a conditional GET is answered from this version, without reading the entity
+     */
+    public final void recordVersion(final Class<? extends IEntity> clazz, final long id, final String stampBeforeRead, final long version) {
+        versionsOf(clazz).recordedVersions.put(id, new RecordedVersion(stampBeforeRead, version));
+    }
+
+    /**
+     * - note: a version read while the entity was changing is recorded with the stamp from before the change, so it is never returned once the change completes
+     *
+     * @return the persistent version recorded for the entity, or null if there is none or the entity changed since it was read
+     */
+    public final Long getRecordedVersion(final Class<? extends IEntity> clazz, final long id) {
+        final TypeVersions typeVersions = versionsOf(clazz);
+        final RecordedVersion recorded = typeVersions.recordedVersions.getIfPresent(id);
+        if (recorded == null || !recorded.stamp.equals(typeVersions.stampOf(id))) {
+            return null;
+        }
+        return recorded.version;
+    }
+
+    /**
+     * @return the last modification time of the type and of the types its representation depends on, in milliseconds (always a whole second)
+     */
+    public final long getLastModified(final Class<?> clazz, final Class<?>... dependsOn) {
+        long lastModified = versionsOf(clazz).lastModified.get();
+        for (final Class<?> dependency : dependsOn) {
+            lastModified = Math.max(lastModified, versionsOf(dependency).lastModified.get());
+        }
+        return lastModified;
+    }
+
+    public final long getTypeVersion(final Class<?> clazz) {
+        return versionsOf(clazz).typeVersion.get();
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public final void onApplicationEvent(final ApplicationEvent event) {
+        if (event instanceof AfterEntityCreatedEvent) {
+            onChange(((AfterEntityCreatedEvent) event).getClazz(), null);
+        } else if (event instanceof AfterEntityUpdateEvent) {
+            final AfterEntityUpdateEvent ev = (AfterEntityUpdateEvent) event;
+            onChange(ev.getClazz(), ev.getEntity().getId());
+        } else if (event instanceof AfterEntityDeleteEvent) {
+            final AfterEntityDeleteEvent ev = (AfterEntityDeleteEvent) event;
+            onChange(ev.getClazz(), ev.getEntity().getId());
+        } else if (event instanceof AfterEntitiesCreatedEvent) {
+            onChange(((AfterEntitiesCreatedEvent) event).getClazz(), null);
+        } else if (event instanceof AfterEntitiesUpdatedEvent) {
+            final AfterEntitiesUpdatedEvent ev = (AfterEntitiesUpdatedEvent) event;
+            for (final Object entity : ev.getEntities()) {
+                bump(versionsOf(ev.getClazz()).counterOf(((IEntity) entity).getId()));
+            }
+            onChange(ev.getClazz(), null);
+        } else if (event instanceof AfterEntitiesDeletedEvent) {
+            final AfterEntitiesDeletedEvent ev = (AfterEntitiesDeletedEvent) event;
+            final TypeVersions typeVersions = versionsOf(ev.getClazz());
+            if (ev.isAllDeleted()) {
+                bump(typeVersions.generation);
+            } else {
+                for (final Object id : ev.getIds()) {
+                    bump(typeVersions.counterOf((Long) id));
+                }
+            }
+            bump(typeVersions.typeVersion);
+            advance(typeVersions.lastModified);
+        }
+    }
+
+    // util
+
+    final void onChange(final Class<?> clazz, final Long id) {
+        final TypeVersions typeVersions = versionsOf(clazz);
+        if (id != null) {
+            bump(typeVersions.counterOf(id));
+        }
+        bump(typeVersions.typeVersion);
+        advance(typeVersions.lastModified);
+    }
+
+    final TypeVersions versionsOf(final Class<?> clazz) {
+        TypeVersions typeVersions = versions.get(clazz);
+        if (typeVersions == null) {
+            versions.putIfAbsent(clazz, new TypeVersions());
+            typeVersions = versions.get(clazz);
+        }
+        return typeVersions;
+    }
+
+    static void bump(final AtomicLong counter) {
+        counter.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public final void afterCompletion(final int status) {
+                    counter.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    static void advance(final AtomicLong clock) {
+        tick(clock);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public final void afterCompletion(final int status) {
+                    tick(clock);
+                }
+            });
+        }
+    }
+
+    /**
+     * - note: moves the clock to the current second - never past it, so that a date handed out is never ahead of the changes that follow it
+     */
+    static void tick(final AtomicLong clock) {
+        while (true) {
+            final long previous = clock.get();
+            final long next = Math.max(wholeSeconds(System.currentTimeMillis()), previous);
+            if (next == previous || clock.compareAndSet(previous, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return true if the modification time is in a second that is already over - a date in the current second can still be followed by another change within it, so it cannot prove a representation is unmodified
+     */
+    public static boolean isSettled(final long lastModified) {
+        return lastModified < wholeSeconds(System.currentTimeMillis());
+    }
+
+    static long wholeSeconds(final long millis) {
+        return millis / 1000 * 1000;
+    }
+
+    static final class TypeVersions {
+        final AtomicLong lastModified = new AtomicLong(wholeSeconds(System.currentTimeMillis()));
+        final AtomicLong typeVersion = new AtomicLong();
+        final AtomicLong generation = new AtomicLong();
+        final ConcurrentMap<Long, AtomicLong> entityVersions = new ConcurrentHashMap<Long, AtomicLong>();
+        final Cache<Long, RecordedVersion> recordedVersions = CacheBuilder.newBuilder().maximumSize(MAX_RECORDED_VERSIONS).build();
+
+        final String stampOf(final long id) {
+            return generation.get() + "." + versionOf(id);
+        }
+
+        final long versionOf(final long id) {
+            final AtomicLong counter = entityVersions.get(id);
+            return counter == null ? 0 : counter.get();
+        }
+
+        final AtomicLong counterOf(final long id) {
+            AtomicLong counter = entityVersions.get(id);
+            if (counter == null) {
+                entityVersions.putIfAbsent(id, new AtomicLong());
+                counter = entityVersions.get(id);
+            }
+            return counter;
+        }
+    }
+
+    static final class RecordedVersion {
+        final String stamp;
+        final long version;
+
+        RecordedVersion(final String stamp, final long version) {
+            this.stamp = stamp;
+            this.version = version;
+        }
+    }
+
+}
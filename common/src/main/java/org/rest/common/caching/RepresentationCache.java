@@ -0,0 +1,328 @@
+package org.rest.common.caching;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.rest.common.persistence.event.AfterEntitiesCreatedEvent;
+import org.rest.common.persistence.event.AfterEntitiesDeletedEvent;
+import org.rest.common.persistence.event.AfterEntitiesUpdatedEvent;
+import org.rest.common.persistence.event.AfterEntityCreatedEvent;
+import org.rest.common.persistence.event.AfterEntityDeleteEvent;
+import org.rest.common.persistence.event.AfterEntityUpdateEvent;
+import org.rest.common.persistence.model.IEntity;
+import org.rest.common.security.SpringSecurityUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.net.HttpHeaders;
+
+/**
+ * Opt-in cache of serialized GET representations (body, ETag and the relevant headers) for {@link VersionedResource} controllers. <br>
+ * - keyed by URI (with query), Accept and the authorities of the caller <br>
+ * - every entry is tagged with the entities it was built from; the persistence events evict exactly the entries tagged with the changed entity or type <br>
+ * - an entry is only stored if the versions of its entities did not move while it was being built, and is only served while they still match
+ */
+@Component
+public class RepresentationCache implements ApplicationListener<ApplicationEvent> {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    static final String TAGS_ATTRIBUTE = RepresentationCache.class.getName() + ".TAGS";
+
+    private static final String ANY_ID = "*";
+
+    @Value("${web.cache.representations:false}")
+    private boolean enabled;
+
+    @Value("${web.cache.representations.maxBytes:16777216}")
+    private long maxBytes;
+
+    @Autowired
+    private EntityVersionRegistry versionRegistry;
+
+    private Cache<String, CachedRepresentation> cache;
+
+    private final ConcurrentMap<String, Set<String>> keysByTag = new ConcurrentHashMap<String, Set<String>>();
+
+    public RepresentationCache() {
+        super();
+    }
+
+    // API
+
+    /**
+     * @return the cache key of the request, or null if the request is not eligible for caching
+     */
+    public final String keyFor(final HttpServletRequest request) {
+        if (!enabled || !"GET".equals(request.getMethod())) {
+            return null;
+        }
+
+        final StringBuilder key = new StringBuilder(request.getRequestURI());
+        if (request.getQueryString() != null) {
+            key.append('?').append(request.getQueryString());
+        }
+        key.append('|').append(request.getHeader(HttpHeaders.ACCEPT));
+        key.append('|').append(authoritiesOfCurrentCaller());
+        return key.toString();
+    }
+
+    public final CachedRepresentation get(final String key) {
+        final CachedRepresentation cached = cache().getIfPresent(key);
+        if (cached == null) {
+            return null;
+        }
+        if (!cached.tags.stamp.equals(stampOf(cached.tags))) {
+            cache().invalidate(key);
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * - note: only stores the representation if the request was tagged by the {@link VersionETagInterceptor} and the tagged entities did not change in the meantime
+     */
+    public final void put(final String key, final HttpServletRequest request, final CachedRepresentation representation) {
+        final ResourceTags tags = (ResourceTags) request.getAttribute(TAGS_ATTRIBUTE);
+        if (tags == null || representation.body.length > maxBytes) {
+            return;
+        }
+        if (!tags.stamp.equals(stampOf(tags))) {
+            logger.debug("Entities of {} changed while the response was built - not caching it", key);
+            return;
+        }
+
+        final CachedRepresentation tagged = new CachedRepresentation(representation.body, representation.etag, representation.contentType, representation.links, representation.cacheControl, tags);
+        for (final String tag : tags.asTags()) {
+            index(tag, key);
+        }
+        cache().put(key, tagged);
+    }
+
+    /**
+     * @return the <code>Last-Modified</code> time of a cached collection, or -1 for a single resource
+     */
+    public final long lastModifiedOf(final CachedRepresentation representation) {
+        final ResourceTags tags = representation.tags;
+        if (tags == null || tags.id != null) {
+            return -1;
+        }
+        return versionRegistry.getLastModified(tags.clazz, tags.dependsOn);
+    }
+
+    final String stampOf(final ResourceTags tags) {
+        return versionRegistry.getStamp(tags.clazz, tags.id, tags.dependsOn);
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public final void onApplicationEvent(final ApplicationEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        if (event instanceof AfterEntityCreatedEvent) {
+            evictNowAndAfterCompletion(typeTag(((AfterEntityCreatedEvent) event).getClazz()));
+        } else if (event instanceof AfterEntityUpdateEvent) {
+            final AfterEntityUpdateEvent ev = (AfterEntityUpdateEvent) event;
+            evictNowAndAfterCompletion(typeTag(ev.getClazz()), entityTag(ev.getClazz(), String.valueOf(ev.getEntity().getId())));
+        } else if (event instanceof AfterEntityDeleteEvent) {
+            final AfterEntityDeleteEvent ev = (AfterEntityDeleteEvent) event;
+            evictNowAndAfterCompletion(typeTag(ev.getClazz()), entityTag(ev.getClazz(), String.valueOf(ev.getEntity().getId())));
+        } else if (event instanceof AfterEntitiesCreatedEvent) {
+            evictNowAndAfterCompletion(typeTag(((AfterEntitiesCreatedEvent) event).getClazz()));
+        } else if (event instanceof AfterEntitiesUpdatedEvent) {
+            final AfterEntitiesUpdatedEvent ev = (AfterEntitiesUpdatedEvent) event;
+            final List<String> tags = Lists.newArrayList(typeTag(ev.getClazz()));
+            for (final Object entity : ev.getEntities()) {
+                tags.add(entityTag(ev.getClazz(), String.valueOf(((IEntity) entity).getId())));
+            }
+            evictNowAndAfterCompletion(tags.toArray(new String[tags.size()]));
+        } else if (event instanceof AfterEntitiesDeletedEvent) {
+            final AfterEntitiesDeletedEvent ev = (AfterEntitiesDeletedEvent) event;
+            final Class clazz = ev.getClazz();
+            if (ev.isAllDeleted()) {
+                evictNowAndAfterCompletion(typeTag(clazz), entityTag(clazz, ANY_ID));
+                return;
+            }
+            final List<String> tags = Lists.newArrayList(typeTag(clazz));
+            for (final Object id : ev.getIds()) {
+                tags.add(entityTag(clazz, String.valueOf(id)));
+            }
+            evictNowAndAfterCompletion(tags.toArray(new String[tags.size()]));
+        }
+    }
+
+    // util
+
+    final void evictNowAndAfterCompletion(final String... tags) {
+        evict(tags);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public final void afterCompletion(final int status) {
+                    evict(tags);
+                }
+            });
+        }
+    }
+
+    final void evict(final String... tags) {
+        for (final String tag : tags) {
+            final Set<String> keys = keysByTag.remove(tag);
+            if (keys != null) {
+                cache().invalidateAll(Lists.newArrayList(keys));
+            }
+        }
+    }
+
+    /**
+     * - note: the key set of a tag is dropped from the index once it is evicted or emptied; if that happens while the key is being added, the key is added again to the new set of the tag
+     */
+    private void index(final String tag, final String key) {
+        while (true) {
+            Set<String> keys = keysByTag.get(tag);
+            if (keys == null) {
+                keysByTag.putIfAbsent(tag, Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>()));
+                keys = keysByTag.get(tag);
+            }
+            if (keys == null) {
+                continue;
+            }
+            keys.add(key);
+            if (keysByTag.get(tag) == keys) {
+                return;
+            }
+        }
+    }
+
+    private void unindex(final String tag, final String key) {
+        final Set<String> keys = keysByTag.get(tag);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByTag.remove(tag, keys);
+            }
+        }
+    }
+
+    final int indexedTags() {
+        return keysByTag.size();
+    }
+
+    private synchronized Cache<String, CachedRepresentation> cache() {
+        if (cache == null) {
+            cache = CacheBuilder.newBuilder().maximumWeight(maxBytes).weigher(new Weigher<String, CachedRepresentation>() {
+                @Override
+                public final int weigh(final String key, final CachedRepresentation value) {
+                    return value.body.length;
+                }
+            }).removalListener(new RemovalListener<String, CachedRepresentation>() {
+                @Override
+                public final void onRemoval(final RemovalNotification<String, CachedRepresentation> notification) {
+                    final CachedRepresentation removed = notification.getValue();
+                    if (removed != null && removed.tags != null) {
+                        for (final String tag : removed.tags.asTags()) {
+                            unindex(tag, notification.getKey());
+                        }
+                    }
+                }
+            }).build();
+        }
+        return cache;
+    }
+
+    static String authoritiesOfCurrentCaller() {
+        final Authentication authentication = SpringSecurityUtil.getCurrentAuthentication();
+        if (authentication == null || authentication.getAuthorities() == null) {
+            return "";
+        }
+        final Set<String> authorities = Sets.newTreeSet();
+        for (final GrantedAuthority authority : authentication.getAuthorities()) {
+            authorities.add(authority.getAuthority());
+        }
+        return authorities.toString();
+    }
+
+    static String typeTag(final Class<?> clazz) {
+        return clazz.getName();
+    }
+
+    static String entityTag(final Class<?> clazz, final String id) {
+        return clazz.getName() + "#" + id;
+    }
+
+    /**
+     * The entities a representation was built from, together with their versions at the time the request started.
+     */
+    static final class ResourceTags {
+        final Class<? extends IEntity> clazz;
+        final Long id;
+        final Class<? extends IEntity>[] dependsOn;
+        final String stamp;
+
+        ResourceTags(final Class<? extends IEntity> clazzToSet, final Long idToSet, final Class<? extends IEntity>[] dependsOnToSet, final String stampToSet) {
+            clazz = clazzToSet;
+            id = idToSet;
+            dependsOn = dependsOnToSet;
+            stamp = stampToSet;
+        }
+
+        /**
+         * - a single resource is tagged with its own entity; a collection is tagged with the whole type; both are tagged with the types they embed
+         */
+        final Collection<String> asTags() {
+            final List<String> tags = Lists.newArrayList();
+            if (id == null) {
+                tags.add(typeTag(clazz));
+            } else {
+                tags.add(entityTag(clazz, String.valueOf(id)));
+                tags.add(entityTag(clazz, ANY_ID));
+            }
+            for (final Class<? extends IEntity> dependency : dependsOn) {
+                tags.add(typeTag(dependency));
+            }
+            return tags;
+        }
+    }
+
+    static final class CachedRepresentation {
+        final byte[] body;
+        final String etag;
+        final String contentType;
+        final Collection<String> links;
+        final String cacheControl;
+        final ResourceTags tags;
+
+        CachedRepresentation(final byte[] bodyToSet, final String etagToSet, final String contentTypeToSet, final Collection<String> linksToSet, final String cacheControlToSet, final ResourceTags tagsToSet) {
+            body = bodyToSet;
+            etag = etagToSet;
+            contentType = contentTypeToSet;
+            links = linksToSet;
+            cacheControl = cacheControlToSet;
+            tags = tagsToSet;
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+package org.rest.common.caching;
+
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.rest.common.persistence.model.IVersionedEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import com.google.common.net.HttpHeaders;
+
+/**
+ * Answers conditional GETs on single resources of {@link VersionedResource} controllers from the {@link EntityVersionRegistry} - a matching <code>If-None-Match</code> gets a 304 before the controller (and the
+ * persistence layer) is ever reached. <br>
+ * - entities with a persistent version are tagged with the strong ETag derived from that version (see {@link EntityVersionRegistry#getVersionETag}), the tag a conditional update is compared against; the version is the one the controller last read and recorded, as long as the entity has not changed since - otherwise the controller reads the entity, answers, and records its version <br>
+ * - also tags every GET on these controllers with the entities it reads, so that the {@link RepresentationCache} can store the response
+ */
+@Component
+public class VersionETagInterceptor extends HandlerInterceptorAdapter {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private static final String ID = "id";
+
+    @Autowired
+    private EntityVersionRegistry versionRegistry;
+
+    public VersionETagInterceptor() {
+        super();
+    }
+
+    // API
+
+    @Override
+    public final boolean preHandle(final HttpServletRequest request, final HttpServletResponse response, final Object handler) {
+        if (!"GET".equals(request.getMethod()) || !(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        final VersionedResource versionedResource = AnnotationUtils.findAnnotation(((HandlerMethod) handler).getBeanType(), VersionedResource.class);
+        if (versionedResource == null) {
+            return true;
+        }
+        final Long id = resolveId(request);
+        final String stamp = versionRegistry.getStamp(versionedResource.value(), id, versionedResource.dependsOn());
+        request.setAttribute(RepresentationCache.TAGS_ATTRIBUTE, new RepresentationCache.ResourceTags(versionedResource.value(), id, versionedResource.dependsOn(), stamp));
+        if (id == null) {
+            return true;
+        }
+
+        final String etag = etagOf(versionedResource, id, request);
+        if (etag == null) {
+            return true;
+        }
+        response.setHeader(HttpHeaders.ETAG, etag);
+        if (ETagComputeUtils.matchesAnyCoding(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            logger.debug("Version ETag match: returning 304 Not Modified");
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+        return true;
+    }
+
+    // util
+
+    /**
+     * @return the ETag of the resource, or null if it cannot be known without reading the entity
+     */
+    private String etagOf(final VersionedResource versionedResource, final long id, final HttpServletRequest request) {
+        if (!IVersionedEntity.class.isAssignableFrom(versionedResource.value())) {
+            return versionRegistry.getETag(versionedResource.value(), id, versionedResource.dependsOn(), request.getHeader(HttpHeaders.ACCEPT));
+        }
+        final Long version = versionRegistry.getRecordedVersion(versionedResource.value(), id);
+        return version == null ? null : versionRegistry.getVersionETag(version, versionedResource.dependsOn());
+    }
+
+    @SuppressWarnings("unchecked")
+    static Long resolveId(final HttpServletRequest request) {
+        final Map<String, String> uriVariables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (uriVariables == null || uriVariables.get(ID) == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(uriVariables.get(ID));
+        } catch (final NumberFormatException numberFormatEx) {
+            return null; // the controller will deal with it
+        }
+    }
+
+}
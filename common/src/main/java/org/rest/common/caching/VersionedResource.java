@@ -0,0 +1,24 @@
+package org.rest.common.caching;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.rest.common.persistence.model.IEntity;
+
+/**
+ * Marks a controller whose single resources (<code>/{id}</code>) are tagged with version-based ETags. <br>
+ * - <code>value</code> is the entity backing the resource; <code>dependsOn</code> lists the entities that are embedded in its representation (any change to them changes the ETag as well)
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface VersionedResource {
+
+    Class<? extends IEntity> value();
+
+    Class<? extends IEntity>[] dependsOn() default {};
+
+}
@@ -20,6 +20,11 @@ public final class PaginatedResultsRetrievedEvent<T extends Serializable> extend
     private final int page;
     private final int totalPages;
     private final int pageSize;
+    private final boolean slice;
+    private final boolean hasNextPage;
+    private final boolean keyset;
+    private final String cursor;
+    private final String nextCursor;
 
     public PaginatedResultsRetrievedEvent(final Class<T> clazz, final UriComponentsBuilder uriBuilderToSet, final HttpServletResponse responseToSet, final int pageToSet, final int totalPagesToSet, final int pageSizeToSet) {
         super(clazz);
@@ -29,6 +34,47 @@ public final class PaginatedResultsRetrievedEvent<T extends Serializable> extend
         page = pageToSet;
         totalPages = totalPagesToSet;
         pageSize = pageSizeToSet;
+        slice = false;
+        hasNextPage = pageToSet < totalPagesToSet - 1;
+        keyset = false;
+        cursor = null;
+        nextCursor = null;
+    }
+
+    /**
+     * Slice pagination - the total is not known, only whether there is a next page.
+     */
+    public PaginatedResultsRetrievedEvent(final Class<T> clazz, final UriComponentsBuilder uriBuilderToSet, final HttpServletResponse responseToSet, final int pageToSet, final int pageSizeToSet, final boolean hasNextPageToSet) {
+        super(clazz);
+
+        uriBuilder = uriBuilderToSet;
+        response = responseToSet;
+        page = pageToSet;
+        totalPages = -1;
+        pageSize = pageSizeToSet;
+        slice = true;
+        hasNextPage = hasNextPageToSet;
+        keyset = false;
+        cursor = null;
+        nextCursor = null;
+    }
+
+    /**
+     * Keyset pagination - there are no page numbers, only the cursor the page was retrieved after (null for the first page) and the one to continue with (null for the last page).
+     */
+    public PaginatedResultsRetrievedEvent(final Class<T> clazz, final UriComponentsBuilder uriBuilderToSet, final HttpServletResponse responseToSet, final String cursorToSet, final String nextCursorToSet, final int pageSizeToSet) {
+        super(clazz);
+
+        uriBuilder = uriBuilderToSet;
+        response = responseToSet;
+        page = -1;
+        totalPages = -1;
+        pageSize = pageSizeToSet;
+        slice = false;
+        hasNextPage = nextCursorToSet != null;
+        keyset = true;
+        cursor = cursorToSet;
+        nextCursor = nextCursorToSet;
     }
 
     // API
@@ -53,6 +99,26 @@ public final class PaginatedResultsRetrievedEvent<T extends Serializable> extend
         return pageSize;
     }
 
+    public final boolean isSlice() {
+        return slice;
+    }
+
+    public final boolean hasNextPage() {
+        return hasNextPage;
+    }
+
+    public final boolean isKeyset() {
+        return keyset;
+    }
+
+    public final String getCursor() {
+        return cursor;
+    }
+
+    public final String getNextCursor() {
+        return nextCursor;
+    }
+
     /**
      * The object on which the Event initially occurred.
      * 
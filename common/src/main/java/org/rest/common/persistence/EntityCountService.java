@@ -0,0 +1,210 @@
+package org.rest.common.persistence;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.rest.common.persistence.event.AfterEntitiesCreatedEvent;
+import org.rest.common.persistence.event.AfterEntitiesDeletedEvent;
+import org.rest.common.persistence.event.AfterEntitiesUpdatedEvent;
+import org.rest.common.persistence.event.AfterEntityCreatedEvent;
+import org.rest.common.persistence.event.AfterEntityDeleteEvent;
+import org.rest.common.persistence.event.AfterEntityUpdateEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Supplier;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Keeps exact per-entity-type counts in memory, so that pagination totals and <code>count</code> do not need a <code>SELECT COUNT(*)</code> each time. <br>
+ * - a count is loaded once (through the given loader) and then maintained from the create and delete events; the deltas are applied only once the transaction commits <br>
+ * - a count loaded while a change to the type is in flight is returned but not kept, since it may or may not include that change <br>
+ * - counts of search specifications are kept in a bounded cache, keyed by the specification and the change counter of the type - any change to the type retires them <br>
+ * - note: the counts live in this JVM only and only see changes made through the services - rows written by anything else (another node, SQL) go unnoticed until the type is reset
+ */
+@Component
+public class EntityCountService implements ApplicationListener<ApplicationEvent> {
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ConcurrentMap<Class<?>, TypeCount> counts = new ConcurrentHashMap<Class<?>, TypeCount>();
+
+    private Cache<SpecificationKey, Long> specificationCounts = CacheBuilder.newBuilder().maximumSize(1000).build();
+
+    public EntityCountService() {
+        super();
+    }
+
+    // API
+
+    /**
+     * @param loader runs the actual count, when there is no maintained count yet
+     */
+    public final long count(final Class<?> clazz, final Supplier<Long> loader) {
+        final TypeCount typeCount = countOf(clazz);
+        final long maintained = typeCount.count.get();
+        if (maintained >= 0) {
+            return maintained;
+        }
+
+        final long changesBefore = typeCount.changes.get();
+        final boolean quiet = typeCount.inFlight.get() == 0;
+        final long loaded = loader.get();
+        if (quiet && typeCount.inFlight.get() == 0 && typeCount.changes.get() == changesBefore) {
+            typeCount.count.compareAndSet(-1, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * @param specification identifies the search (e.g. the query string); it must be a stable value with <code>equals</code> and <code>hashCode</code>
+     */
+    public final long count(final Class<?> clazz, final Object specification, final Supplier<Long> loader) {
+        final TypeCount typeCount = countOf(clazz);
+        final long changesBefore = typeCount.changes.get();
+        if (typeCount.inFlight.get() > 0) {
+            return loader.get();
+        }
+
+        final SpecificationKey key = new SpecificationKey(clazz, specification, changesBefore);
+        final Long cached = specificationCounts.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        final long loaded = loader.get();
+        if (typeCount.inFlight.get() == 0 && typeCount.changes.get() == changesBefore) {
+            specificationCounts.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops the maintained count of the type - the next call loads it again.
+     */
+    public final void reset(final Class<?> clazz) {
+        final TypeCount typeCount = countOf(clazz);
+        typeCount.changes.incrementAndGet();
+        typeCount.count.set(-1);
+    }
+
+    @Value("${persistence.counts.specifications.maxSize:1000}")
+    public final void setSpecificationsMaxSize(final long maxSize) {
+        specificationCounts = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public final void onApplicationEvent(final ApplicationEvent event) {
+        if (event instanceof AfterEntityCreatedEvent) {
+            onChange(((AfterEntityCreatedEvent) event).getClazz(), 1);
+        } else if (event instanceof AfterEntityDeleteEvent) {
+            onChange(((AfterEntityDeleteEvent) event).getClazz(), -1);
+        } else if (event instanceof AfterEntityUpdateEvent) {
+            // the total is unchanged, but the entity may now match different searches
+            onChange(((AfterEntityUpdateEvent) event).getClazz(), 0);
+        } else if (event instanceof AfterEntitiesCreatedEvent) {
+            final AfterEntitiesCreatedEvent ev = (AfterEntitiesCreatedEvent) event;
+            onChange(ev.getClazz(), ev.getEntities().size());
+        } else if (event instanceof AfterEntitiesUpdatedEvent) {
+            onChange(((AfterEntitiesUpdatedEvent) event).getClazz(), 0);
+        } else if (event instanceof AfterEntitiesDeletedEvent) {
+            final AfterEntitiesDeletedEvent ev = (AfterEntitiesDeletedEvent) event;
+            if (ev.isAllDeleted()) {
+                onChange(ev.getClazz(), 0);
+                reset(ev.getClazz());
+            } else {
+                onChange(ev.getClazz(), -ev.getIds().size());
+            }
+        }
+    }
+
+    // util
+
+    final void onChange(final Class<?> clazz, final int delta) {
+        final TypeCount typeCount = countOf(clazz);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            typeCount.apply(delta);
+            return;
+        }
+
+        typeCount.inFlight.incrementAndGet();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public final void afterCompletion(final int status) {
+                if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                    typeCount.apply(delta);
+                } else if (status == TransactionSynchronization.STATUS_UNKNOWN) {
+                    typeCount.changes.incrementAndGet();
+                    typeCount.count.set(-1);
+                }
+                typeCount.inFlight.decrementAndGet();
+            }
+        });
+    }
+
+    final TypeCount countOf(final Class<?> clazz) {
+        TypeCount typeCount = counts.get(clazz);
+        if (typeCount == null) {
+            counts.putIfAbsent(clazz, new TypeCount());
+            typeCount = counts.get(clazz);
+        }
+        return typeCount;
+    }
+
+    static final class TypeCount {
+        /** the maintained count; -1 while it is not known */
+        final AtomicLong count = new AtomicLong(-1);
+        final AtomicLong changes = new AtomicLong();
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        final void apply(final int delta) {
+            changes.incrementAndGet();
+            while (true) {
+                final long current = count.get();
+                if (current < 0 || count.compareAndSet(current, current + delta)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    static final class SpecificationKey {
+        private final Class<?> clazz;
+        private final Object specification;
+        private final long changes;
+
+        SpecificationKey(final Class<?> clazzToSet, final Object specificationToSet, final long changesToSet) {
+            clazz = clazzToSet;
+            specification = specificationToSet;
+            changes = changesToSet;
+        }
+
+        @Override
+        public final int hashCode() {
+            return Objects.hashCode(clazz, specification, changes);
+        }
+
+        @Override
+        public final boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof SpecificationKey)) {
+                return false;
+            }
+            final SpecificationKey other = (SpecificationKey) obj;
+            return clazz.equals(other.clazz) && changes == other.changes && Objects.equal(specification, other.specification);
+        }
+    }
+
+}
@@ -0,0 +1,197 @@
+package org.rest.common.persistence;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.rest.common.persistence.event.AfterEntitiesCreatedEvent;
+import org.rest.common.persistence.event.AfterEntitiesDeletedEvent;
+import org.rest.common.persistence.event.AfterEntitiesUpdatedEvent;
+import org.rest.common.persistence.event.AfterEntityCreatedEvent;
+import org.rest.common.persistence.event.AfterEntityDeleteEvent;
+import org.rest.common.persistence.event.AfterEntityUpdateEvent;
+import org.rest.common.persistence.model.IEntity;
+import org.rest.common.persistence.model.INameableEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Keeps, per entity type, the ids of the names looked up recently and the names recently found missing, so that <code>findByName</code> rarely needs the name query. <br>
+ * - a known name is served by id (<code>findOne</code>, which the second level cache answers for the cached types); the entity is checked to still carry the name, otherwise the name is looked up again <br>
+ * - a missing name is remembered for a short time (<code>persistence.names.missingTtlSeconds</code>), or until the type changes through this JVM - the changes made elsewhere (another node, SQL) are only seen once it expires <br>
+ * - the update and delete events retire the ids of the changed entities; any change retires the missing names
+ */
+@Component
+public class EntityNameCache implements ApplicationListener<ApplicationEvent> {
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ConcurrentMap<Class<?>, TypeNames> types = new ConcurrentHashMap<Class<?>, TypeNames>();
+
+    private long ttlSeconds = 600;
+    private long maxSize = 10000;
+    private long missingTtlSeconds = 5;
+
+    public EntityNameCache() {
+        super();
+    }
+
+    // API
+
+    /**
+     * @return the entity with the given name, or null if there is none
+     */
+    public final <T extends INameableEntity> T findByName(final Class<T> clazz, final String name, final Loader<T> loader) {
+        if (name == null) {
+            return loader.findByName(name);
+        }
+        final TypeNames typeNames = namesOf(clazz);
+
+        final Long id = typeNames.ids.getIfPresent(name);
+        if (id != null) {
+            final T entity = loader.findOne(id);
+            if (entity != null && name.equals(entity.getName())) {
+                return entity;
+            }
+            typeNames.ids.invalidate(name);
+        }
+
+        final long changesBefore = typeNames.changes.get();
+        final Long missingSince = typeNames.missing.getIfPresent(name);
+        if (missingSince != null && missingSince == changesBefore) {
+            return null;
+        }
+
+        final T entity = loader.findByName(name);
+        if (entity == null) {
+            typeNames.missing.put(name, changesBefore);
+            return null;
+        }
+        if (entity.getId() != null) {
+            typeNames.ids.put(name, entity.getId());
+        }
+        return entity;
+    }
+
+    /**
+     * Drops everything known about the names of the type.
+     */
+    public final void reset(final Class<?> clazz) {
+        final TypeNames typeNames = namesOf(clazz);
+        typeNames.changes.incrementAndGet();
+        typeNames.ids.invalidateAll();
+        typeNames.missing.invalidateAll();
+    }
+
+    @Value("${persistence.names.ttlSeconds:600}")
+    public final void setTtlSeconds(final long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+        types.clear();
+    }
+
+    @Value("${persistence.names.maxSize:10000}")
+    public final void setMaxSize(final long maxSize) {
+        this.maxSize = maxSize;
+        types.clear();
+    }
+
+    @Value("${persistence.names.missingTtlSeconds:5}")
+    public final void setMissingTtlSeconds(final long missingTtlSeconds) {
+        this.missingTtlSeconds = missingTtlSeconds;
+        types.clear();
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Override
+    public final void onApplicationEvent(final ApplicationEvent event) {
+        if (event instanceof AfterEntityCreatedEvent) {
+            final AfterEntityCreatedEvent ev = (AfterEntityCreatedEvent) event;
+            if (ev.getEntity() instanceof INameableEntity) {
+                onChange(ev.getClazz(), Collections.singletonList((INameableEntity) ev.getEntity()));
+            }
+        } else if (event instanceof AfterEntityUpdateEvent) {
+            final AfterEntityUpdateEvent ev = (AfterEntityUpdateEvent) event;
+            onChange(ev.getClazz(), Collections.singletonList(ev.getEntity()));
+        } else if (event instanceof AfterEntityDeleteEvent) {
+            final AfterEntityDeleteEvent ev = (AfterEntityDeleteEvent) event;
+            namesOf(ev.getClazz()).ids.asMap().values().removeAll(Collections.singleton(ev.getEntity().getId()));
+        } else if (event instanceof AfterEntitiesCreatedEvent) {
+            final AfterEntitiesCreatedEvent ev = (AfterEntitiesCreatedEvent) event;
+            onChange(ev.getClazz(), ev.getEntities());
+        } else if (event instanceof AfterEntitiesUpdatedEvent) {
+            final AfterEntitiesUpdatedEvent ev = (AfterEntitiesUpdatedEvent) event;
+            onChange(ev.getClazz(), ev.getEntities());
+        } else if (event instanceof AfterEntitiesDeletedEvent) {
+            final AfterEntitiesDeletedEvent ev = (AfterEntitiesDeletedEvent) event;
+            final TypeNames typeNames = namesOf(ev.getClazz());
+            if (ev.isAllDeleted()) {
+                typeNames.ids.invalidateAll();
+            } else {
+                typeNames.ids.asMap().values().removeAll(ev.getIds());
+            }
+        }
+    }
+
+    // util
+
+    /**
+     * - note: the missing names are retired right away, and again when the transaction completes, since until the commit a lookup from another transaction cannot see the change
+     */
+    final void onChange(final Class<?> clazz, final Collection<? extends IEntity> entities) {
+        final TypeNames typeNames = namesOf(clazz);
+        for (final IEntity entity : entities) {
+            if (entity.getId() != null) {
+                typeNames.ids.asMap().values().removeAll(Collections.singleton(entity.getId()));
+            }
+        }
+        typeNames.changes.incrementAndGet();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public final void afterCompletion(final int status) {
+                    typeNames.changes.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    final TypeNames namesOf(final Class<?> clazz) {
+        TypeNames typeNames = types.get(clazz);
+        if (typeNames == null) {
+            types.putIfAbsent(clazz, new TypeNames());
+            typeNames = types.get(clazz);
+        }
+        return typeNames;
+    }
+
+    /**
+     * Loads the entities of one type, for the cache.
+     */
+    public interface Loader<T extends INameableEntity> {
+
+        T findByName(final String name);
+
+        T findOne(final long id);
+
+    }
+
+    final class TypeNames {
+        final Cache<String, Long> ids = CacheBuilder.newBuilder().expireAfterWrite(ttlSeconds, TimeUnit.SECONDS).maximumSize(maxSize).build();
+        /** the missing names, with the change counter of the type at the time they were found missing - short lived, since the counter only sees the changes of this JVM */
+        final Cache<String, Long> missing = CacheBuilder.newBuilder().expireAfterWrite(missingTtlSeconds, TimeUnit.SECONDS).maximumSize(maxSize).build();
+        final AtomicLong changes = new AtomicLong();
+    }
+
+}
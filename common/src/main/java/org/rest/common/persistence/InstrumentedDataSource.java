@@ -0,0 +1,145 @@
+package org.rest.common.persistence;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+
+/**
+ * Wraps the connection pool and measures how connections are acquired from it - count, wait time and timeouts. <br>
+ * - a timeout is an acquisition failed because the pool stayed exhausted for its whole maximum wait <br>
+ * - the state of the pool itself (active and idle connections) is pool specific, and left to subclasses <br>
+ * - note: the attributes are exported over JMX when the subclass is a <code>@ManagedResource</code>
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public InstrumentedDataSource(final DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    // API
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final long start = System.nanoTime();
+        try {
+            final Connection connection = super.getConnection();
+            acquired.incrementAndGet();
+            return connection;
+        } catch (final SQLException sqlEx) {
+            onFailure(sqlEx);
+            throw sqlEx;
+        } finally {
+            onWait(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        final long start = System.nanoTime();
+        try {
+            final Connection connection = super.getConnection(username, password);
+            acquired.incrementAndGet();
+            return connection;
+        } catch (final SQLException sqlEx) {
+            onFailure(sqlEx);
+            throw sqlEx;
+        } finally {
+            onWait(System.nanoTime() - start);
+        }
+    }
+
+    // metrics
+
+    @ManagedAttribute(description = "Connections acquired from the pool")
+    public final long getAcquiredConnections() {
+        return acquired.get();
+    }
+
+    @ManagedAttribute(description = "Acquisitions that timed out waiting for an exhausted pool")
+    public final long getTimeouts() {
+        return timeouts.get();
+    }
+
+    @ManagedAttribute(description = "Acquisitions that failed for any other reason")
+    public final long getFailures() {
+        return failures.get();
+    }
+
+    @ManagedAttribute(description = "Average time to acquire a connection, in milliseconds")
+    public final double getAverageWaitMillis() {
+        final long attempts = acquired.get() + timeouts.get() + failures.get();
+        if (attempts == 0) {
+            return 0;
+        }
+        return (double) totalWaitNanos.get() / attempts / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @ManagedAttribute(description = "Longest time to acquire a connection, in milliseconds")
+    public final long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    /**
+     * @return the connections currently in use, or -1 if the pool does not tell
+     */
+    @ManagedAttribute(description = "Connections currently in use")
+    public int getActiveConnections() {
+        return -1;
+    }
+
+    /**
+     * @return the connections currently idle in the pool, or -1 if the pool does not tell
+     */
+    @ManagedAttribute(description = "Connections currently idle in the pool")
+    public int getIdleConnections() {
+        return -1;
+    }
+
+    @ManagedOperation(description = "Resets the acquisition counters")
+    public final void resetMetrics() {
+        acquired.set(0);
+        timeouts.set(0);
+        failures.set(0);
+        totalWaitNanos.set(0);
+        maxWaitNanos.set(0);
+    }
+
+    // util
+
+    /**
+     * - note: pools report an exhausted wait as an {@link SQLException} caused by a {@link NoSuchElementException} (DBCP) or whose message mentions the timeout
+     */
+    final void onFailure(final SQLException sqlEx) {
+        final String message = sqlEx.getMessage();
+        if (sqlEx.getCause() instanceof NoSuchElementException || (message != null && message.toLowerCase().contains("timeout"))) {
+            timeouts.incrementAndGet();
+        } else {
+            failures.incrementAndGet();
+        }
+    }
+
+    final void onWait(final long waitNanos) {
+        totalWaitNanos.addAndGet(waitNanos);
+        while (true) {
+            final long max = maxWaitNanos.get();
+            if (waitNanos <= max || maxWaitNanos.compareAndSet(max, waitNanos)) {
+                return;
+            }
+        }
+    }
+
+}
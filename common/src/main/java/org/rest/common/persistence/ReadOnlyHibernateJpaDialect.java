@@ -0,0 +1,64 @@
+package org.rest.common.persistence;
+
+import java.sql.SQLException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+
+import org.hibernate.Session;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+
+/**
+ * Runs the read-only transactions (<code>@Transactional(readOnly = true)</code>) without any dirty checking. <br>
+ * - Spring already switches the session of a read-only transaction to <code>FlushMode.MANUAL</code>, so it is never flushed <br>
+ * - on top of that, the session loads its entities read-only - Hibernate keeps no snapshot of their state, and does not compare them at the end <br>
+ * - the session goes back to loading modifiable entities once the transaction completes <br>
+ * - note: a read-only method that joins a read-write transaction runs read-write; the mode is only decided when the transaction starts
+ */
+public class ReadOnlyHibernateJpaDialect extends HibernateJpaDialect {
+
+    public ReadOnlyHibernateJpaDialect() {
+        super();
+    }
+
+    // API
+
+    @Override
+    public Object beginTransaction(final EntityManager entityManager, final TransactionDefinition definition) throws PersistenceException, SQLException, TransactionException {
+        final Object transactionData = super.beginTransaction(entityManager, definition);
+        if (!definition.isReadOnly()) {
+            return transactionData;
+        }
+
+        final Session session = entityManager.unwrap(Session.class);
+        if (session.isDefaultReadOnly()) {
+            return transactionData;
+        }
+        session.setDefaultReadOnly(true);
+        return new ReadOnlyTransactionData(session, transactionData);
+    }
+
+    @Override
+    public void cleanupTransaction(final Object transactionData) {
+        if (transactionData instanceof ReadOnlyTransactionData) {
+            final ReadOnlyTransactionData readOnlyTransactionData = (ReadOnlyTransactionData) transactionData;
+            readOnlyTransactionData.session.setDefaultReadOnly(false);
+            super.cleanupTransaction(readOnlyTransactionData.transactionData);
+        } else {
+            super.cleanupTransaction(transactionData);
+        }
+    }
+
+    static final class ReadOnlyTransactionData {
+        private final Session session;
+        private final Object transactionData;
+
+        ReadOnlyTransactionData(final Session sessionToSet, final Object transactionDataToSet) {
+            session = sessionToSet;
+            transactionData = transactionDataToSet;
+        }
+    }
+
+}
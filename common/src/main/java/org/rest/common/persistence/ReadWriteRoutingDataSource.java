@@ -0,0 +1,107 @@
+package org.rest.common.persistence;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+/**
+ * Routes read-only transactions to the read replicas (round robin) and everything else to the primary. <br>
+ * - the read-only flag is only known once the transaction has started, so this must sit behind a <code>LazyConnectionDataSourceProxy</code>, which defers the actual connection to the first statement <br>
+ * - read your writes: once the thread has run a read-write transaction, it is pinned to the primary until {@link #unpin()} (e.g. at the end of the request), so that it does not read stale data from a lagging replica <br>
+ * - without replicas, everything goes to the primary <br>
+ * - note: the pin only covers the thread that wrote - another request (or client) may still read from a replica that has not caught up
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica-";
+
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<Boolean>();
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(final DataSource primaryToSet, final List<? extends DataSource> replicasToSet) {
+        super();
+        Preconditions.checkNotNull(primaryToSet);
+        Preconditions.checkNotNull(replicasToSet);
+
+        primary = primaryToSet;
+        replicas = ImmutableList.copyOf(replicasToSet);
+
+        final Map<Object, Object> targets = Maps.newHashMap();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(REPLICA + i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    // API
+
+    /**
+     * Sends the reads of the current thread to the primary, until {@link #unpin()}.
+     */
+    public static void pinToPrimary() {
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+    }
+
+    public static void unpin() {
+        PINNED_TO_PRIMARY.remove();
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED_TO_PRIMARY.get() != null;
+    }
+
+    public final int getReplicaCount() {
+        return replicas.size();
+    }
+
+    // routing
+
+    @Override
+    protected final Object determineCurrentLookupKey() {
+        final boolean readOnly = TransactionSynchronizationManager.isActualTransactionActive() && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (!readOnly) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                pinToPrimary();
+            }
+            return PRIMARY;
+        }
+        if (replicas.isEmpty() || isPinnedToPrimary()) {
+            return PRIMARY;
+        }
+
+        final int replica = (next.getAndIncrement() & Integer.MAX_VALUE) % replicas.size();
+        return REPLICA + replica;
+    }
+
+    // Spring
+
+    /**
+     * - note: closes the replicas (this data source created them); the primary is left to its owner
+     */
+    @Override
+    public final void destroy() throws Exception {
+        for (final DataSource replica : replicas) {
+            if (replica instanceof DisposableBean) {
+                ((DisposableBean) replica).destroy();
+            }
+        }
+    }
+
+}
@@ -1,22 +1,30 @@
 package org.rest.common.persistence.event;
 
+import java.util.List;
+
 import org.rest.common.persistence.model.IEntity;
 import org.springframework.context.ApplicationEvent;
 
 import com.google.common.base.Preconditions;
 
 /**
- * This event is fired after all entities are deleted.
+ * This event is fired after entities are deleted in bulk - either all of them (no ids), or the ones with the given ids.
  */
 public final class AfterEntitiesDeletedEvent<T extends IEntity> extends ApplicationEvent {
 
     private final Class<T> clazz;
+    private final List<Long> ids;
 
     public AfterEntitiesDeletedEvent(final Object sourceToSet, final Class<T> clazzToSet) {
+        this(sourceToSet, clazzToSet, null);
+    }
+
+    public AfterEntitiesDeletedEvent(final Object sourceToSet, final Class<T> clazzToSet, final List<Long> idsToSet) {
         super(sourceToSet);
 
         Preconditions.checkNotNull(clazzToSet);
         clazz = clazzToSet;
+        ids = idsToSet;
     }
 
     // API
@@ -25,4 +33,15 @@ public final class AfterEntitiesDeletedEvent<T extends IEntity> extends Applicat
         return clazz;
     }
 
+    /**
+     * @return the ids of the deleted entities, or null if all entities were deleted
+     */
+    public final List<Long> getIds() {
+        return ids;
+    }
+
+    public final boolean isAllDeleted() {
+        return ids == null;
+    }
+
 }
@@ -0,0 +1,37 @@
+package org.rest.common.persistence.event;
+
+import java.util.List;
+
+import org.rest.common.persistence.model.IEntity;
+import org.springframework.context.ApplicationEvent;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * This event is fired after the given entities are updated, as one batch.
+ */
+public final class AfterEntitiesUpdatedEvent<T extends IEntity> extends ApplicationEvent {
+    private final Class<T> clazz;
+    private final List<T> entities;
+
+    public AfterEntitiesUpdatedEvent(final Object sourceToSet, final Class<T> clazzToSet, final List<T> entitiesToSet) {
+        super(sourceToSet);
+
+        Preconditions.checkNotNull(clazzToSet);
+        clazz = clazzToSet;
+
+        Preconditions.checkNotNull(entitiesToSet);
+        entities = entitiesToSet;
+    }
+
+    // API
+
+    public final Class<T> getClazz() {
+        return clazz;
+    }
+
+    public final List<T> getEntities() {
+        return entities;
+    }
+
+}
@@ -0,0 +1,37 @@
+package org.rest.common.persistence.event;
+
+import java.util.List;
+
+import org.rest.common.persistence.model.IEntity;
+import org.springframework.context.ApplicationEvent;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * This event is fired before the entities with the given ids are deleted, as one batch.
+ */
+public final class BeforeEntitiesDeletedEvent<T extends IEntity> extends ApplicationEvent {
+    private final Class<T> clazz;
+    private final List<Long> ids;
+
+    public BeforeEntitiesDeletedEvent(final Object sourceToSet, final Class<T> clazzToSet, final List<Long> idsToSet) {
+        super(sourceToSet);
+
+        Preconditions.checkNotNull(clazzToSet);
+        clazz = clazzToSet;
+
+        Preconditions.checkNotNull(idsToSet);
+        ids = idsToSet;
+    }
+
+    // API
+
+    public final Class<T> getClazz() {
+        return clazz;
+    }
+
+    public final List<Long> getIds() {
+        return ids;
+    }
+
+}
@@ -0,0 +1,15 @@
+package org.rest.common.persistence.model;
+
+/**
+ * An entity under optimistic locking - each update increments its version, and an update made from an older version fails.
+ */
+public interface IVersionedEntity extends IEntity {
+
+    /**
+     * @return the version the state was read at; null for a new entity (or changes that do not claim any version)
+     */
+    Long getVersion();
+
+    void setVersion(final Long version);
+
+}
@@ -1,47 +1,115 @@
 package org.rest.common.persistence.service;
 
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.commons.lang3.tuple.ImmutableTriple;
 import org.apache.commons.lang3.tuple.Triple;
+import org.hibernate.CacheMode;
+import org.hibernate.SQLQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metadata.CollectionMetadata;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
 import org.rest.common.exceptions.BadRequestException;
 import org.rest.common.exceptions.ConflictException;
+import org.rest.common.exceptions.PreconditionFailedException;
+import org.rest.common.exceptions.ResourceNotFoundException;
+import org.rest.common.persistence.EntityCountService;
+import org.rest.common.persistence.event.AfterEntitiesCreatedEvent;
 import org.rest.common.persistence.event.AfterEntitiesDeletedEvent;
+import org.rest.common.persistence.event.AfterEntitiesUpdatedEvent;
 import org.rest.common.persistence.event.AfterEntityCreatedEvent;
 import org.rest.common.persistence.event.AfterEntityDeleteEvent;
 import org.rest.common.persistence.event.AfterEntityUpdateEvent;
+import org.rest.common.persistence.event.BeforeEntitiesCreatedEvent;
+import org.rest.common.persistence.event.BeforeEntitiesDeletedEvent;
+import org.rest.common.persistence.event.BeforeEntitiesUpdatedEvent;
 import org.rest.common.persistence.event.BeforeEntityCreatedEvent;
 import org.rest.common.persistence.event.BeforeEntityDeleteEvent;
 import org.rest.common.persistence.event.BeforeEntityUpdateEvent;
 import org.rest.common.persistence.model.IEntity;
+import org.rest.common.persistence.model.IVersionedEntity;
+import org.rest.common.persistence.service.BulkItemResult.Outcome;
 import org.rest.common.search.ClientOperation;
+import org.rest.common.util.QueryConstants;
 import org.rest.common.util.SearchCommonUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.SimpleTypeConverter;
+import org.springframework.beans.TypeMismatchException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.domain.Specifications;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.query.QueryUtils;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.google.common.base.Preconditions;
+import com.google.common.base.Predicates;
+import com.google.common.base.Supplier;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 @Transactional
 public abstract class AbstractRawService<T extends IEntity> implements IRawService<T> {
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
+    static final String MISSING_VERSION = "The changes carry no version - a versioned resource is updated from the version it was read at (in the body, or in If-Match)";
+
     private Class<T> clazz;
 
     @Autowired
     protected ApplicationEventPublisher eventPublisher;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired(required = false)
+    private EntityCountService countService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private int bulkChunkSize = 500;
+
+    private int streamFetchSize = 500;
+
+    private volatile List<JoinTableColumn> joinTableColumns;
+
     public AbstractRawService(final Class<T> clazzToSet) {
         super();
 
@@ -54,6 +122,7 @@ public abstract class AbstractRawService<T extends IEntity> implements IRawServi
 
     @SuppressWarnings("unchecked")
     @Override
+    @Transactional(readOnly = true)
     public List<T> searchAll(final String queryString) {
         Preconditions.checkNotNull(queryString);
         List<Triple<String, ClientOperation, String>> parsedQuery = null;
@@ -71,6 +140,7 @@ public abstract class AbstractRawService<T extends IEntity> implements IRawServi
 
     @SuppressWarnings({ "unchecked" })
     @Override
+    @Transactional(readOnly = true)
     public List<T> searchPaginated(final String queryString, final int page, final int size) {
         List<Triple<String, ClientOperation, String>> parsedQuery = null;
         try {
@@ -87,6 +157,7 @@ public abstract class AbstractRawService<T extends IEntity> implements IRawServi
 
     @SuppressWarnings("null")
     @Override
+    @Transactional(readOnly = true)
     public List<T> searchAll(final Triple<String, ClientOperation, String>... constraints) {
         Preconditions.checkState(constraints != null);
         Preconditions.checkState(constraints.length > 0);
@@ -99,11 +170,12 @@ public abstract class AbstractRawService<T extends IEntity> implements IRawServi
             return Lists.newArrayList();
         }
 
-        return getSpecificationExecutor().findAll(specifications);
+        return getListFetchPlan().initialize(getSpecificationExecutor().findAll(specifications));
     }
 
     @SuppressWarnings("null")
     @Override
+    @Transactional(readOnly = true)
     public T searchOne(final Triple<String, ClientOperation, String>... constraints) {
         Preconditions.checkState(constraints != null);
         Preconditions.checkState(constraints.length > 0);
@@ -116,10 +188,14 @@ public abstract class AbstractRawService<T extends IEntity> implements IRawServi
             return null;
         }
 
-        return getSpecificationExecutor().findOne(specifications);
+        return getDetailFetchPlan().initialize(getSpecificationExecutor().findOne(specifications));
     }
 
+    /**
+     * - note: the total is taken from the count cache (see {@link EntityCountService}), when there is one
+     */
     @Override
+    @Transactional(readOnly = true)
     public Page<T> searchPaginated(final int page, final int size, final Triple<String, ClientOperation, String>... constraints) {
         final Specification<T> firstSpec = resolveConstraint(constraints[0]);
         Preconditions.checkState(firstSpec != null);
@@ -128,7 +204,17 @@ public abstract class AbstractRawService<T extends IEntity> implements IRawServi
             specifications = specifications.and(resolveConstraint(constraints[i]));
         }
 
-        return getSpecificationExecutor().findAll(specifications, new PageRequest(page, size, null));
+        if (countService == null) {
+            return fetchContentOf(getSpecificationExecutor().findAll(specifications, new PageRequest(page, size, null)));
+        }
+        final Specifications<T> specificationsToCount = specifications;
+        final long total = countService.count(clazz, Arrays.asList(constraints), new Supplier<Long>() {
+            @Override
+            public final Long get() {
+                return getSpecificationExecutor().count(specificationsToCount);
+            }
+        });
+        return findPage(specifications, new PageRequest(page, size, null), total);
     }
 
     // find - one
@@ -136,7 +222,7 @@ public abstract class AbstractRawService<T extends IEntity> implements IRawServi
     @Override
     @Transactional(readOnly = true)
     public T findOne(final long id) {
-        return getDao().findOne(id);
+        return getDetailFetchPlan().initialize(getDao().findOne(id));
     }
 
     // find - all
@@ -144,14 +230,65 @@ public abstract class AbstractRawService<T extends IEntity> implements IRawServi
     @Override
     @Transactional(readOnly = true)
     public List<T> findAll() {
-        return Lists.newArrayList(getDao().findAll());
+        return getListFetchPlan().initialize(Lists.newArrayList(getDao().findAll()));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<T> findAllPaginatedAndSortedRaw(final int page, final int size, final String sortBy, final String sortOrder) {
         final Sort sortInfo = constructSort(sortBy, sortOrder);
-        return getDao().findAll(new PageRequest(page, size, sortInfo));
+        if (countService == null) {
+            return fetchContentOf(getDao().findAll(new PageRequest(page, size, sortInfo)));
+        }
+        return findPage(null, new PageRequest(page, size, sortInfo), count());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<T> findAllSliced(final int page, final int size, final String sortBy, final String sortOrder) {
+        final PageRequest pageRequest = new PageRequest(page, size, constructSort(sortBy, sortOrder));
+        final List<T> content = findContent(null, pageRequest.getSort(), pageRequest.getOffset(), size + 1);
+        if (content.size() <= size) {
+            return new Slice<T>(content, page, size, false);
+        }
+        return new Slice<T>(Lists.newArrayList(content.subList(0, size)), page, size, true);
+    }
+
+    /**
+     * - note: seeks with <code>(sortBy, id) > (lastSortKey, lastId)</code> (or <code>&lt;</code> for DESC) and reads one extra row to know whether there is a next page - no OFFSET, no count
+     */
+    @SuppressWarnings("rawtypes")
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<T> findAllAfter(final String cursorToken, final int size, final String sortBy, final String sortOrder) {
+        Preconditions.checkArgument(size > 0, "Page size must be positive");
+        final KeysetCursor cursor = cursorToken == null ? null : KeysetCursor.decode(cursorToken);
+        final String sortAttribute = keysetSortBy(cursor, sortBy);
+        final Direction direction = keysetDirection(cursor, sortOrder);
+
+        final CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<T> query = builder.createQuery(clazz);
+        final Root<T> root = query.from(clazz);
+        final Path<Comparable> key = root.get(sortAttribute);
+        final Path<Long> id = root.get(QueryConstants.ID);
+        if (cursor != null) {
+            query.where(seekPredicate(builder, key, id, cursor, direction));
+        }
+        if (direction == Direction.ASC) {
+            query.orderBy(builder.asc(key), builder.asc(id));
+        } else {
+            query.orderBy(builder.desc(key), builder.desc(id));
+        }
+
+        final List<T> content = entityManager.createQuery(query).setMaxResults(size + 1).getResultList();
+        if (content.size() <= size) {
+            return new KeysetPage<T>(getListFetchPlan().initialize(content), null);
+        }
+
+        final List<T> page = getListFetchPlan().initialize(Lists.newArrayList(content.subList(0, size)));
+        final T last = page.get(size - 1);
+        final Object lastKey = new BeanWrapperImpl(last).getPropertyValue(sortAttribute);
+        return new KeysetPage<T>(page, new KeysetCursor(sortAttribute, direction, sortKeyToString(lastKey), last.getId()));
     }
 
     @Override
@@ -162,7 +299,7 @@ public abstract class AbstractRawService<T extends IEntity> implements IRawServi
         if (content == null) {
             return Lists.newArrayList();
         }
-        return content;
+        return getListFetchPlan().initialize(content);
     }
 
     @Override
@@ -172,14 +309,14 @@ public abstract class AbstractRawService<T extends IEntity> implements IRawServi
         if (content == null) {
             return Lists.newArrayList();
         }
-        return content;
+        return getListFetchPlan().initialize(content);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<T> findAllSorted(final String sortBy, final String sortOrder) {
         final Sort sortInfo = constructSort(sortBy, sortOrder);
-        return Lists.newArrayList(getDao().findAll(sortInfo));
+        return getListFetchPlan().initialize(Lists.newArrayList(getDao().findAll(sortInfo)));
     }
 
     // save/create/persist
@@ -197,12 +334,23 @@ public abstract class AbstractRawService<T extends IEntity> implements IRawServi
 
     // update/merge
 
+    /**
+     * - note: the changes are applied to the current state of the entity (see {@link #applyUpdate}), read once - from the second level cache, for the cached types <br>
+     * - note: the changes to a versioned entity must carry the version they were made from - without one, the update is refused ({@link PreconditionFailedException}), since it would silently overwrite whatever changed in between <br>
+     * - note: the version is checked against the current one right away, and again by the <code>UPDATE</code> itself (<code>... where id=? and version=?</code>), which fails with an {@link OptimisticLockingFailureException} if the entity was updated since it was read
+     */
     @Override
     public void update(final T entity) {
         Preconditions.checkNotNull(entity);
 
+        final T current = getDao().findOne(entity.getId());
+        if (current == null) {
+            throw new ResourceNotFoundException();
+        }
+        checkVersion(current, entity);
+
         eventPublisher.publishEvent(new BeforeEntityUpdateEvent<T>(this, clazz, entity));
-        getDao().save(entity);
+        getDao().save(applyUpdate(current, entity));
         eventPublisher.publishEvent(new AfterEntityUpdateEvent<T>(this, clazz, entity));
     }
 
@@ -223,11 +371,195 @@ public abstract class AbstractRawService<T extends IEntity> implements IRawServi
         eventPublisher.publishEvent(new AfterEntityDeleteEvent<T>(this, clazz, entity));
     }
 
+    // delete - set based
+
+    @Override
+    public boolean deleteById(final long id) {
+        return deleteByIds(Lists.newArrayList(id)) > 0;
+    }
+
+    /**
+     * - note: a single query first picks the ids that exist, so that the events (and the counts maintained from them) only carry those
+     */
+    @Override
+    public int deleteByIds(final List<Long> ids) {
+        Preconditions.checkNotNull(ids);
+
+        int deleted = 0;
+        for (final List<Long> chunk : Lists.partition(ids, bulkChunkSize)) {
+            deleted += deleteExisting(chunk).size();
+        }
+        return deleted;
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        entityManager.flush();
+        for (final JoinTableColumn joinTableColumn : joinTableColumns()) {
+            joinTableColumn.delete(entityManager.unwrap(Session.class), null);
+        }
+        entityManager.createQuery("delete from " + clazz.getName()).executeUpdate();
+        eventPublisher.publishEvent(new AfterEntitiesDeletedEvent<T>(this, clazz));
+    }
+
+    /**
+     * - note: HQL rather than Criteria, so that eager collections are not join fetched (which would repeat the root entity once per collection element) <br>
+     * - note: the fetch size is only a hint - MySQL Connector/J reads the whole result set into memory unless the URL has <code>useCursorFetch=true</code>
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(final IConsumer<T> consumer) {
+        Preconditions.checkNotNull(consumer);
+
+        final Session session = entityManager.unwrap(Session.class);
+        final ScrollableResults results = session.createQuery("from " + clazz.getName() + " e order by e.id").setReadOnly(true).setFetchSize(streamFetchSize).setCacheMode(CacheMode.IGNORE).scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            final List<T> batch = Lists.newArrayListWithCapacity(streamFetchSize);
+            while (results.next()) {
+                batch.add((T) results.get(0));
+                if (batch.size() == streamFetchSize) {
+                    streamBatch(batch, consumer);
+                    session.clear();
+                }
+            }
+            streamBatch(batch, consumer);
+        } finally {
+            results.close();
+        }
+    }
+
+    /**
+     * - note: the associations of the whole batch are loaded together, before any of its entities is handed out
+     */
+    private void streamBatch(final List<T> batch, final IConsumer<T> consumer) {
+        getListFetchPlan().initialize(batch);
+        for (final T entity : batch) {
+            consumer.accept(entity);
+        }
+        batch.clear();
+    }
+
+    @Value("${persistence.stream.fetchSize:500}")
+    public final void setStreamFetchSize(final int streamFetchSize) {
+        Preconditions.checkArgument(streamFetchSize > 0);
+        this.streamFetchSize = streamFetchSize;
+    }
+
+    // bulk
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BulkItemResult> createAll(final List<T> entities) {
+        Preconditions.checkNotNull(entities);
+
+        return inChunks(entities, new ChunkOperation<T>() {
+            @Override
+            public final List<BulkItemResult> apply(final List<T> chunk, final int offset) {
+                final BulkItemResult[] results = new BulkItemResult[chunk.size()];
+                final List<T> toCreate = Lists.newArrayList();
+                for (int i = 0; i < chunk.size(); i++) {
+                    if (chunk.get(i).getId() != null) {
+                        results[i] = new BulkItemResult(offset + i, chunk.get(i).getId(), Outcome.FAILED, "A new resource must not have an id");
+                    } else {
+                        toCreate.add(chunk.get(i));
+                    }
+                }
+
+                eventPublisher.publishEvent(new BeforeEntitiesCreatedEvent<T>(AbstractRawService.this, clazz, toCreate));
+                final List<T> created = Lists.newArrayList(getDao().save(toCreate));
+                entityManager.flush();
+                eventPublisher.publishEvent(new AfterEntitiesCreatedEvent<T>(AbstractRawService.this, clazz, created));
+
+                for (int i = 0, j = 0; i < chunk.size(); i++) {
+                    if (results[i] == null) {
+                        results[i] = new BulkItemResult(offset + i, created.get(j++).getId(), Outcome.CREATED, null);
+                    }
+                }
+                return Arrays.asList(results);
+            }
+        });
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BulkItemResult> updateAll(final List<T> entities) {
+        Preconditions.checkNotNull(entities);
+
+        return inChunks(entities, new ChunkOperation<T>() {
+            @Override
+            public final List<BulkItemResult> apply(final List<T> chunk, final int offset) {
+                final Map<Long, T> existing = findAllById(idsOf(chunk));
+                final List<BulkItemResult> results = Lists.newArrayList();
+                final List<T> toUpdate = Lists.newArrayList();
+                for (int i = 0; i < chunk.size(); i++) {
+                    final T changes = chunk.get(i);
+                    final T current = changes.getId() == null ? null : existing.get(changes.getId());
+                    if (current == null) {
+                        results.add(new BulkItemResult(offset + i, changes.getId(), Outcome.NOT_FOUND, null));
+                    } else if (isMissingVersion(current, changes)) {
+                        results.add(new BulkItemResult(offset + i, changes.getId(), Outcome.FAILED, MISSING_VERSION));
+                    } else if (!isSameVersion(current, changes)) {
+                        results.add(new BulkItemResult(offset + i, changes.getId(), Outcome.FAILED, "The resource was updated since the given version"));
+                    } else {
+                        checkVersion(current, changes);
+                        toUpdate.add(applyUpdate(current, changes));
+                        results.add(new BulkItemResult(offset + i, changes.getId(), Outcome.UPDATED, null));
+                    }
+                }
+
+                eventPublisher.publishEvent(new BeforeEntitiesUpdatedEvent<T>(AbstractRawService.this, clazz, toUpdate));
+                getDao().save(toUpdate);
+                entityManager.flush();
+                eventPublisher.publishEvent(new AfterEntitiesUpdatedEvent<T>(AbstractRawService.this, clazz, toUpdate));
+                return results;
+            }
+        });
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BulkItemResult> deleteAll(final List<Long> ids) {
+        Preconditions.checkNotNull(ids);
+
+        return inChunks(ids, new ChunkOperation<Long>() {
+            @Override
+            public final List<BulkItemResult> apply(final List<Long> chunk, final int offset) {
+                final List<Long> deleted = deleteExisting(chunk);
+
+                final List<BulkItemResult> results = Lists.newArrayList();
+                for (int i = 0; i < chunk.size(); i++) {
+                    final Outcome outcome = deleted.contains(chunk.get(i)) ? Outcome.DELETED : Outcome.NOT_FOUND;
+                    results.add(new BulkItemResult(offset + i, chunk.get(i), outcome, null));
+                }
+                return results;
+            }
+        });
+    }
+
+    @Value("${persistence.bulk.chunkSize:500}")
+    public final void setBulkChunkSize(final int bulkChunkSize) {
+        Preconditions.checkArgument(bulkChunkSize > 0);
+        this.bulkChunkSize = bulkChunkSize;
+    }
+
     // count
 
+    /**
+     * - note: served from the maintained count (see {@link EntityCountService}), when there is one
+     */
     @Override
+    @Transactional(readOnly = true)
     public long count() {
-        return getDao().count();
+        if (countService == null) {
+            return getDao().count();
+        }
+        return countService.count(clazz, new Supplier<Long>() {
+            @Override
+            public final Long get() {
+                return getDao().count();
+            }
+        });
     }
 
     // template method
@@ -243,6 +575,289 @@ public abstract class AbstractRawService<T extends IEntity> implements IRawServi
 
     // template
 
+    /**
+     * The associations loaded with each entity of a list - <code>findAll*</code>, <code>search*</code> and <code>streamAll</code>; none by default.
+     */
+    protected FetchPlan getListFetchPlan() {
+        return FetchPlan.NONE;
+    }
+
+    /**
+     * The associations loaded with a single entity - <code>findOne</code>, <code>searchOne</code> and the finders of the concrete services; by default, the same as for a list.
+     */
+    protected FetchPlan getDetailFetchPlan() {
+        return getListFetchPlan();
+    }
+
+    /**
+     * Applies the changes of an update to the current state of the entity; by default, the changes simply replace it.
+     */
+    @SuppressWarnings("unused")
+    protected T applyUpdate(final T current, final T changes) {
+        return changes;
+    }
+
+    /**
+     * Runs the operation chunk by chunk, each chunk in its own transaction; a chunk that fails is split into single items, so that one bad item does not fail the others.
+     */
+    private <I> List<BulkItemResult> inChunks(final List<I> items, final ChunkOperation<I> operation) {
+        final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        final List<BulkItemResult> results = Lists.newArrayListWithCapacity(items.size());
+        int offset = 0;
+        for (final List<I> chunk : Lists.partition(items, bulkChunkSize)) {
+            results.addAll(inTransaction(transactionTemplate, chunk, offset, operation));
+            offset += chunk.size();
+        }
+        return results;
+    }
+
+    /**
+     * - note: Hibernate assigns ids and versions to the entities when it persists them, and does not reset them when the transaction rolls back - so they are restored before the items are retried, or every retried item would look like an existing resource
+     */
+    private <I> List<BulkItemResult> inTransaction(final TransactionTemplate transactionTemplate, final List<I> chunk, final int offset, final ChunkOperation<I> operation) {
+        final List<Long[]> identities = identitiesOf(chunk);
+        try {
+            return transactionTemplate.execute(new TransactionCallback<List<BulkItemResult>>() {
+                @Override
+                public final List<BulkItemResult> doInTransaction(final TransactionStatus status) {
+                    return operation.apply(chunk, offset);
+                }
+            });
+        } catch (final RuntimeException ex) {
+            restoreIdentities(chunk, identities);
+            if (chunk.size() == 1) {
+                logger.debug("Bulk operation failed for item {}", offset, ex);
+                final Long id = chunk.get(0) instanceof IEntity ? ((IEntity) chunk.get(0)).getId() : (Long) chunk.get(0);
+                return Lists.newArrayList(new BulkItemResult(offset, id, Outcome.FAILED, ExceptionUtils.getRootCauseMessage(ex)));
+            }
+
+            logger.info("Bulk operation failed for the chunk at {} - retrying its {} items one by one", offset, chunk.size());
+            final List<BulkItemResult> results = Lists.newArrayListWithCapacity(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                results.addAll(inTransaction(transactionTemplate, chunk.subList(i, i + 1), offset + i, operation));
+            }
+            return results;
+        }
+    }
+
+    /**
+     * @return the id and version of each entity of the chunk, as they were before the chunk ran (null for items that are not entities)
+     */
+    private static <I> List<Long[]> identitiesOf(final List<I> chunk) {
+        final List<Long[]> identities = Lists.newArrayListWithCapacity(chunk.size());
+        for (final I item : chunk) {
+            if (!(item instanceof IEntity)) {
+                identities.add(null);
+                continue;
+            }
+            final Long version = item instanceof IVersionedEntity ? ((IVersionedEntity) item).getVersion() : null;
+            identities.add(new Long[] { ((IEntity) item).getId(), version });
+        }
+        return identities;
+    }
+
+    private static <I> void restoreIdentities(final List<I> chunk, final List<Long[]> identities) {
+        for (int i = 0; i < chunk.size(); i++) {
+            final Long[] identity = identities.get(i);
+            if (identity == null) {
+                continue;
+            }
+            ((IEntity) chunk.get(i)).setId(identity[0]);
+            if (chunk.get(i) instanceof IVersionedEntity) {
+                ((IVersionedEntity) chunk.get(i)).setVersion(identity[1]);
+            }
+        }
+    }
+
+    /**
+     * The changes must claim the version they are applied to, and it must be the current one.
+     */
+    private void checkVersion(final T current, final T changes) {
+        if (isMissingVersion(current, changes)) {
+            throw new PreconditionFailedException(MISSING_VERSION);
+        }
+        if (!isSameVersion(current, changes)) {
+            throw new ObjectOptimisticLockingFailureException(current.getClass(), ((IVersionedEntity) current).getId());
+        }
+    }
+
+    /**
+     * - note: an entity stored without a version (a row that predates the versioning) accepts changes without one
+     */
+    private boolean isMissingVersion(final T current, final T changes) {
+        if (!(current instanceof IVersionedEntity) || !(changes instanceof IVersionedEntity)) {
+            return false;
+        }
+        return ((IVersionedEntity) changes).getVersion() == null && ((IVersionedEntity) current).getVersion() != null;
+    }
+
+    private boolean isSameVersion(final T current, final T changes) {
+        if (!(current instanceof IVersionedEntity) || !(changes instanceof IVersionedEntity)) {
+            return true;
+        }
+        final Long claimed = ((IVersionedEntity) changes).getVersion();
+        final Long version = ((IVersionedEntity) current).getVersion();
+        return claimed == null ? version == null : claimed.equals(version);
+    }
+
+    private Map<Long, T> findAllById(final List<Long> ids) {
+        final Map<Long, T> byId = Maps.newHashMap();
+        final List<Long> nonNullIds = Lists.newArrayList(Iterables.filter(ids, Predicates.notNull()));
+        if (nonNullIds.isEmpty()) {
+            return byId;
+        }
+        for (final T entity : getDao().findAll(nonNullIds)) {
+            byId.put(entity.getId(), entity);
+        }
+        return byId;
+    }
+
+    private static <T extends IEntity> List<Long> idsOf(final List<T> entities) {
+        final List<Long> ids = Lists.newArrayListWithCapacity(entities.size());
+        for (final T entity : entities) {
+            ids.add(entity.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Reads only the content of the page - the total is already known, so no count query runs; a page past the end does not run any query.
+     */
+    protected final Page<T> findPage(final Specification<T> specification, final Pageable pageable, final long total) {
+        if (pageable.getOffset() >= total) {
+            return new PageImpl<T>(Lists.<T> newArrayList(), pageable, total);
+        }
+
+        final List<T> content = findContent(specification, pageable.getSort(), pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<T>(content, pageable, total);
+    }
+
+    private List<T> findContent(final Specification<T> specification, final Sort sort, final int offset, final int maxResults) {
+        final CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<T> query = builder.createQuery(clazz);
+        final Root<T> root = query.from(clazz);
+        if (specification != null) {
+            final Predicate predicate = specification.toPredicate(root, query, builder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        if (sort != null) {
+            query.orderBy(QueryUtils.toOrders(sort, root, builder));
+        }
+
+        return getListFetchPlan().initialize(entityManager.createQuery(query).setFirstResult(offset).setMaxResults(maxResults).getResultList());
+    }
+
+    private Page<T> fetchContentOf(final Page<T> page) {
+        if (page != null) {
+            getListFetchPlan().initialize(page.getContent());
+        }
+        return page;
+    }
+
+    /**
+     * Deletes, by statement, the entities with the given ids that exist - join table rows first.
+     * 
+     * @return the ids that existed (and were deleted)
+     */
+    private List<Long> deleteExisting(final List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Lists.newArrayList();
+        }
+        final List<Long> existing = entityManager.createQuery("select e.id from " + clazz.getName() + " e where e.id in :ids", Long.class).setParameter("ids", ids).getResultList();
+        if (existing.isEmpty()) {
+            return existing;
+        }
+
+        eventPublisher.publishEvent(new BeforeEntitiesDeletedEvent<T>(this, clazz, existing));
+        entityManager.flush();
+        final Session session = entityManager.unwrap(Session.class);
+        for (final JoinTableColumn joinTableColumn : joinTableColumns()) {
+            joinTableColumn.delete(session, existing);
+        }
+        entityManager.createQuery("delete from " + clazz.getName() + " e where e.id in :ids").setParameter("ids", existing).executeUpdate();
+        eventPublisher.publishEvent(new AfterEntitiesDeletedEvent<T>(this, clazz, existing));
+        return existing;
+    }
+
+    /**
+     * The join table columns that reference this entity type - both the key of its own many-to-many collections and the element of the collections of other types; read once from the Hibernate metadata.
+     */
+    private List<JoinTableColumn> joinTableColumns() {
+        if (joinTableColumns == null) {
+            final SessionFactoryImplementor sessionFactory = (SessionFactoryImplementor) entityManager.unwrap(Session.class).getSessionFactory();
+            final List<JoinTableColumn> columns = Lists.newArrayList();
+            for (final CollectionMetadata collectionMetadata : sessionFactory.getAllCollectionMetadata().values()) {
+                final AbstractCollectionPersister persister = (AbstractCollectionPersister) collectionMetadata;
+                if (!persister.isManyToMany()) {
+                    continue;
+                }
+                if (clazz.getName().equals(persister.getOwnerEntityName())) {
+                    columns.add(new JoinTableColumn(persister.getTableName(), persister.getKeyColumnNames()));
+                }
+                final Type elementType = persister.getElementType();
+                if (elementType.isEntityType() && clazz.getName().equals(((EntityType) elementType).getAssociatedEntityName())) {
+                    columns.add(new JoinTableColumn(persister.getTableName(), persister.getElementColumnNames()));
+                }
+            }
+            joinTableColumns = columns;
+        }
+        return joinTableColumns;
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private Predicate seekPredicate(final CriteriaBuilder builder, final Path<Comparable> key, final Path<Long> id, final KeysetCursor cursor, final Direction direction) {
+        final boolean asc = direction == Direction.ASC;
+        final Predicate afterId = asc ? builder.greaterThan(id, cursor.getId()) : builder.lessThan(id, cursor.getId());
+        if (cursor.getSortKey() == null || QueryConstants.ID.equals(cursor.getSortBy())) {
+            return afterId;
+        }
+
+        final Comparable lastKey = sortKeyFromString(cursor.getSortKey(), key.getJavaType());
+        final Predicate afterKey = asc ? builder.greaterThan(key, lastKey) : builder.lessThan(key, lastKey);
+        return builder.or(afterKey, builder.and(builder.equal(key, lastKey), afterId));
+    }
+
+    private static String keysetSortBy(final KeysetCursor cursor, final String sortBy) {
+        if (cursor == null) {
+            return sortBy == null ? KeysetCursor.DEFAULT_SORT_BY : sortBy;
+        }
+        Preconditions.checkArgument(sortBy == null || sortBy.equals(cursor.getSortBy()), "The cursor was issued for sortBy=%s", cursor.getSortBy());
+        return cursor.getSortBy();
+    }
+
+    private static Direction keysetDirection(final KeysetCursor cursor, final String sortOrder) {
+        final Direction requested = sortOrder == null ? null : Direction.fromString(sortOrder);
+        if (cursor == null) {
+            return requested == null ? Direction.ASC : requested;
+        }
+        Preconditions.checkArgument(requested == null || requested == cursor.getDirection(), "The cursor was issued for sortOrder=%s", cursor.getDirection());
+        return cursor.getDirection();
+    }
+
+    /**
+     * - note: dates go into the cursor as epoch millis, so that no precision is lost
+     */
+    private static String sortKeyToString(final Object sortKey) {
+        if (sortKey == null) {
+            return null;
+        }
+        return sortKey instanceof Date ? String.valueOf(((Date) sortKey).getTime()) : sortKey.toString();
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Comparable sortKeyFromString(final String sortKey, final Class<?> type) {
+        if (Date.class.isAssignableFrom(type)) {
+            return new Date(Long.parseLong(sortKey));
+        }
+        try {
+            return (Comparable) new SimpleTypeConverter().convertIfNecessary(sortKey, type);
+        } catch (final TypeMismatchException typeEx) {
+            throw new IllegalArgumentException("Invalid cursor", typeEx);
+        }
+    }
+
     protected final Sort constructSort(final String sortBy, final String sortOrder) {
         Sort sortInfo = null;
         if (sortBy != null) {
@@ -251,4 +866,36 @@ public abstract class AbstractRawService<T extends IEntity> implements IRawServi
         return sortInfo;
     }
 
+    interface ChunkOperation<I> {
+        /**
+         * @param offset the position of the first item of the chunk in the whole request
+         */
+        List<BulkItemResult> apply(final List<I> chunk, final int offset);
+    }
+
+    static final class JoinTableColumn {
+        private final String table;
+        private final String column;
+
+        JoinTableColumn(final String tableToSet, final String[] columns) {
+            Preconditions.checkState(columns.length == 1, "Composite join columns are not supported: %s", tableToSet);
+            table = tableToSet;
+            column = columns[0];
+        }
+
+        /**
+         * - note: the query space limits the second level cache invalidation to the collections mapped on this table
+         * 
+         * @param ids the referenced ids, or null for all rows
+         */
+        final int delete(final Session session, final List<Long> ids) {
+            if (ids == null) {
+                return session.createSQLQuery("delete from " + table).addSynchronizedQuerySpace(table).executeUpdate();
+            }
+            final SQLQuery query = session.createSQLQuery("delete from " + table + " where " + column + " in (:ids)");
+            query.addSynchronizedQuerySpace(table);
+            return query.setParameterList("ids", ids).executeUpdate();
+        }
+    }
+
 }
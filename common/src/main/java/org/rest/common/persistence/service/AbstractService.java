@@ -1,15 +1,49 @@
 package org.rest.common.persistence.service;
 
+import org.rest.common.persistence.EntityNameCache;
 import org.rest.common.persistence.model.INameableEntity;
+import org.springframework.beans.factory.annotation.Autowired;
 
 public abstract class AbstractService<T extends INameableEntity> extends AbstractRawService<T> implements IService<T> {
 
+    private final Class<T> clazz;
+
+    @Autowired(required = false)
+    private EntityNameCache nameCache;
+
     public AbstractService(final Class<T> clazzToSet) {
         super(clazzToSet);
+
+        clazz = clazzToSet;
     }
 
     // API
 
     // find - one
 
+    // template
+
+    /**
+     * Finds the entity by name - through the name cache (see {@link EntityNameCache}), when there is one; a name found missing is then not queried again for a short while.
+     * 
+     * @param finder runs the actual name query
+     */
+    protected final T findByName(final String name, final INameSupport<T> finder) {
+        if (nameCache == null) {
+            return finder.findByName(name);
+        }
+
+        return nameCache.findByName(clazz, name, new EntityNameCache.Loader<T>() {
+            @Override
+            public final T findByName(final String nameToFind) {
+                return finder.findByName(nameToFind);
+            }
+
+            @Override
+            public final T findOne(final long id) {
+                return getDao().findOne(id);
+            }
+        });
+    }
+
 }
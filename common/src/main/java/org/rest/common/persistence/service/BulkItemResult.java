@@ -0,0 +1,56 @@
+package org.rest.common.persistence.service;
+
+/**
+ * The outcome of one item of a bulk operation - items are identified by their position in the request.
+ */
+public final class BulkItemResult {
+
+    public enum Outcome {
+        CREATED, UPDATED, DELETED, NOT_FOUND, FAILED
+    }
+
+    private final int index;
+    private final Long id;
+    private final Outcome outcome;
+    private final String message;
+
+    public BulkItemResult(final int indexToSet, final Long idToSet, final Outcome outcomeToSet, final String messageToSet) {
+        super();
+
+        index = indexToSet;
+        id = idToSet;
+        outcome = outcomeToSet;
+        message = messageToSet;
+    }
+
+    // API
+
+    public final int getIndex() {
+        return index;
+    }
+
+    public final Long getId() {
+        return id;
+    }
+
+    public final Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * @return why the item failed; null when it succeeded
+     */
+    public final String getMessage() {
+        return message;
+    }
+
+    public final boolean isSuccessful() {
+        return outcome != Outcome.NOT_FOUND && outcome != Outcome.FAILED;
+    }
+
+    @Override
+    public final String toString() {
+        return "BulkItemResult [index=" + index + ", id=" + id + ", outcome=" + outcome + "]";
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.rest.common.persistence.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.BeanWrapperImpl;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * The lazy associations that an operation needs loaded before its entities leave the transaction - e.g. <code>roles.privileges</code>. <br>
+ * - the plan is walked one level at a time over all the entities together; with <code>@BatchSize</code> on the associations, each level costs one statement per batch instead of one per entity <br>
+ * - note: an association left out of the plan stays uninitialized, and touching it outside the transaction fails; the representations write it as missing instead (see {@link org.rest.common.web.util.UnloadedAssociationsModule})
+ */
+public final class FetchPlan {
+
+    public static final FetchPlan NONE = new FetchPlan(Collections.<List<String>> emptyList());
+
+    private final List<List<String>> paths;
+
+    private FetchPlan(final List<List<String>> pathsToSet) {
+        paths = pathsToSet;
+    }
+
+    /**
+     * @param paths the associations to load, as dotted property paths (e.g. <code>roles</code>, <code>roles.privileges</code>)
+     */
+    public static FetchPlan of(final String... paths) {
+        final ImmutableList.Builder<List<String>> parsed = ImmutableList.builder();
+        for (final String path : paths) {
+            Preconditions.checkArgument(path != null && !path.isEmpty(), "Invalid fetch path: %s", path);
+            parsed.add(ImmutableList.copyOf(Splitter.on('.').split(path)));
+        }
+        return new FetchPlan(parsed.build());
+    }
+
+    // API
+
+    public final boolean isEmpty() {
+        return paths.isEmpty();
+    }
+
+    public final <E> E initialize(final E entity) {
+        if (entity != null && !isEmpty()) {
+            initialize(Arrays.asList(entity));
+        }
+        return entity;
+    }
+
+    public final <C extends Collection<?>> C initialize(final C entities) {
+        if (entities == null || isEmpty()) {
+            return entities;
+        }
+
+        for (final List<String> path : paths) {
+            Collection<?> level = entities;
+            for (final String property : path) {
+                level = initializeLevel(level, property);
+            }
+        }
+        return entities;
+    }
+
+    // util
+
+    private static Collection<?> initializeLevel(final Collection<?> level, final String property) {
+        final List<Object> next = Lists.newArrayList();
+        for (final Object owner : level) {
+            if (owner == null) {
+                continue;
+            }
+            final Object association = new BeanWrapperImpl(owner).getPropertyValue(property);
+            if (association == null) {
+                continue;
+            }
+            Hibernate.initialize(association);
+            if (association instanceof Collection) {
+                next.addAll((Collection<?>) association);
+            } else {
+                next.add(association);
+            }
+        }
+        return next;
+    }
+
+}
@@ -0,0 +1,10 @@
+package org.rest.common.persistence.service;
+
+/**
+ * Receives the entities of a streamed read, one at a time.
+ */
+public interface IConsumer<T> {
+
+    void accept(final T entity);
+
+}
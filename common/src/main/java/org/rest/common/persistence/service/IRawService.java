@@ -20,4 +20,63 @@ public interface IRawService<T extends IEntity> extends IOperations<T> {
 
     Page<T> findAllPaginatedAndSortedRaw(final int page, final int size, final String sortBy, final String sortOrder);
 
+    /**
+     * Like {@link #findAllPaginatedAndSortedRaw(int, int, String, String)}, but without the total - reads <code>size + 1</code> rows to know whether there is a next page, and runs no count.
+     */
+    Slice<T> findAllSliced(final int page, final int size, final String sortBy, final String sortOrder);
+
+    /**
+     * Keyset (seek) pagination - the page starts right after the position encoded in the cursor, so it costs the same however deep the client goes. <br>
+     * - a null cursor starts from the beginning; sortBy defaults to <code>id</code> <br>
+     * - once there is a cursor, it carries the sort attribute and direction; sortBy/sortOrder may be omitted, but must not contradict it
+     * 
+     * @throws IllegalArgumentException if the cursor is invalid or does not match the requested sort
+     */
+    KeysetPage<T> findAllAfter(final String cursor, final int size, final String sortBy, final String sortOrder);
+
+    // delete - set based
+
+    /**
+     * Deletes the entity without loading it - its join table rows are deleted first, by statement, and the delete events carry only the id.
+     * 
+     * @return false if there was no such entity
+     */
+    boolean deleteById(final long id);
+
+    /**
+     * @see #deleteById(long)
+     * @return the number of entities deleted; ids with no entity are ignored
+     */
+    int deleteByIds(final List<Long> ids);
+
+    /**
+     * Deletes all entities, and their join table rows, in a few statements - without loading any of them.
+     */
+    void deleteAllInBatch();
+
+    /**
+     * Streams all entities to the consumer, in id order, without holding them all in memory - rows are read through a scrollable cursor and the persistence context is cleared as it goes. <br>
+     * - note: the entities handed to the consumer may already be detached, so lazy associations must not be touched after the consumer returns
+     */
+    void streamAll(final IConsumer<T> consumer);
+
+    // bulk
+
+    /**
+     * Creates the entities in chunks, each chunk in its own transaction - a chunk that fails is retried item by item, so that only the failing items are lost.
+     * 
+     * @return one result per entity, in request order
+     */
+    List<BulkItemResult> createAll(final List<T> entities);
+
+    /**
+     * @see #createAll(List)
+     */
+    List<BulkItemResult> updateAll(final List<T> entities);
+
+    /**
+     * @see #createAll(List)
+     */
+    List<BulkItemResult> deleteAll(final List<Long> ids);
+
 }
@@ -0,0 +1,82 @@
+package org.rest.common.persistence.service;
+
+import java.nio.charset.Charset;
+
+import org.apache.commons.codec.binary.Base64;
+import org.springframework.data.domain.Sort.Direction;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Position in a keyset (seek) pagination: the sort attribute and direction, plus the sort key and id of the last element returned. <br>
+ * - travels to the client as an opaque, URL safe token; clients are not meant to build or parse it <br>
+ * - note: the sort attribute has to be non-null for all entities - a null sort key degrades the cursor to seeking by id only
+ */
+public final class KeysetCursor {
+
+    public static final String DEFAULT_SORT_BY = "id";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String SEPARATOR = "\u0000";
+
+    private final String sortBy;
+    private final Direction direction;
+    private final String sortKey;
+    private final long id;
+
+    public KeysetCursor(final String sortByToSet, final Direction directionToSet, final String sortKeyToSet, final long idToSet) {
+        super();
+
+        sortBy = Preconditions.checkNotNull(sortByToSet);
+        direction = Preconditions.checkNotNull(directionToSet);
+        sortKey = sortKeyToSet;
+        id = idToSet;
+    }
+
+    // API
+
+    public final String getSortBy() {
+        return sortBy;
+    }
+
+    public final Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * @return the sort key of the last element, in its string form; null if it had none
+     */
+    public final String getSortKey() {
+        return sortKey;
+    }
+
+    public final long getId() {
+        return id;
+    }
+
+    public final String encode() {
+        final String raw = sortBy + SEPARATOR + direction.name() + SEPARATOR + id + SEPARATOR + (sortKey == null ? "" : "=" + sortKey);
+        return Base64.encodeBase64URLSafeString(raw.getBytes(UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token is not a cursor
+     */
+    public static KeysetCursor decode(final String token) {
+        Preconditions.checkArgument(token != null && Base64.isBase64(token), "Invalid cursor");
+        final String[] parts = new String(Base64.decodeBase64(token), UTF_8).split(SEPARATOR, 4);
+        Preconditions.checkArgument(parts.length == 4, "Invalid cursor");
+        try {
+            final String sortKey = parts[3].isEmpty() ? null : parts[3].substring(1);
+            return new KeysetCursor(parts[0], Direction.valueOf(parts[1]), sortKey, Long.parseLong(parts[2]));
+        } catch (final NumberFormatException numberFormatEx) {
+            throw new IllegalArgumentException("Invalid cursor", numberFormatEx);
+        }
+    }
+
+    @Override
+    public final String toString() {
+        return "KeysetCursor [sortBy=" + sortBy + ", direction=" + direction + ", sortKey=" + sortKey + ", id=" + id + "]";
+    }
+
+}
@@ -0,0 +1,34 @@
+package org.rest.common.persistence.service;
+
+import java.util.List;
+
+/**
+ * One page of a keyset (seek) pagination - the elements, and the cursor to continue after them (null on the last page).
+ */
+public final class KeysetPage<T> {
+
+    private final List<T> content;
+    private final KeysetCursor next;
+
+    public KeysetPage(final List<T> contentToSet, final KeysetCursor nextToSet) {
+        super();
+
+        content = contentToSet;
+        next = nextToSet;
+    }
+
+    // API
+
+    public final List<T> getContent() {
+        return content;
+    }
+
+    public final KeysetCursor getNext() {
+        return next;
+    }
+
+    public final boolean hasNext() {
+        return next != null;
+    }
+
+}
@@ -0,0 +1,46 @@
+package org.rest.common.persistence.service;
+
+import java.util.List;
+
+/**
+ * A page of results that does not know the total - only whether there is a next page. Retrieving it costs a single query (no count).
+ */
+public final class Slice<T> {
+
+    private final List<T> content;
+    private final int number;
+    private final int size;
+    private final boolean hasNextPage;
+
+    public Slice(final List<T> contentToSet, final int numberToSet, final int sizeToSet, final boolean hasNextPageToSet) {
+        super();
+
+        content = contentToSet;
+        number = numberToSet;
+        size = sizeToSet;
+        hasNextPage = hasNextPageToSet;
+    }
+
+    // API
+
+    public final List<T> getContent() {
+        return content;
+    }
+
+    public final int getNumber() {
+        return number;
+    }
+
+    public final int getSize() {
+        return size;
+    }
+
+    public final boolean hasNextPage() {
+        return hasNextPage;
+    }
+
+    public final boolean hasPreviousPage() {
+        return number > 0;
+    }
+
+}
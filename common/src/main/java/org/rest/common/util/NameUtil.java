@@ -0,0 +1,28 @@
+package org.rest.common.util;
+
+import java.util.Locale;
+
+/**
+ * Normalizes names for case insensitive matching - the entities store the normalized name in a column of its own (indexed), and the searches normalize their value the same way, so that neither side needs <code>lower(...)</code>
+ */
+public final class NameUtil {
+
+    private NameUtil() {
+        throw new AssertionError();
+    }
+
+    //
+
+    /**
+     * - note: the locale is fixed, so that the normalized form does not depend on the default locale of the node (e.g. the Turkish dotless i)
+     *
+     * @return the normalized name, or null for a null name
+     */
+    public static String normalize(final String name) {
+        if (name == null) {
+            return null;
+        }
+        return name.toLowerCase(Locale.ENGLISH);
+    }
+
+}
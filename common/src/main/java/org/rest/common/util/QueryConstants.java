@@ -16,6 +16,8 @@ public final class QueryConstants {
 
     public static final String PAGE = "page";
     public static final String SIZE = "size";
+    public static final String AFTER = "after";
+    public static final String SLICE = "slice";
     public static final String SORT_BY = "sortBy";
     public static final String SORT_ORDER = "sortOrder";
     public static final String Q_SORT_BY = QUESTIONMARK + SORT_BY + QueryConstants.OP;
@@ -0,0 +1,33 @@
+package org.rest.common.web;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.rest.common.persistence.ReadWriteRoutingDataSource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Scopes the primary pin of the {@link ReadWriteRoutingDataSource} to the request: a request that writes reads from the primary from then on, and the next request on the thread starts unpinned.
+ */
+@Component
+public class ReadYourWritesInterceptor extends HandlerInterceptorAdapter {
+
+    public ReadYourWritesInterceptor() {
+        super();
+    }
+
+    // API
+
+    @Override
+    public final boolean preHandle(final HttpServletRequest request, final HttpServletResponse response, final Object handler) {
+        ReadWriteRoutingDataSource.unpin();
+        return true;
+    }
+
+    @Override
+    public final void afterCompletion(final HttpServletRequest request, final HttpServletResponse response, final Object handler, final Exception ex) {
+        ReadWriteRoutingDataSource.unpin();
+    }
+
+}
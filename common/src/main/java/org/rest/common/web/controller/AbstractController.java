@@ -1,5 +1,6 @@
 package org.rest.common.web.controller;
 
+import java.io.IOException;
 import java.util.List;
 
 import javax.servlet.http.HttpServletRequest;
@@ -7,6 +8,9 @@ import javax.servlet.http.HttpServletResponse;
 import javax.validation.ConstraintViolationException;
 
 import org.apache.http.HttpHeaders;
+import org.rest.common.caching.ETagComputeUtils;
+import org.rest.common.caching.EntityVersionRegistry;
+import org.rest.common.caching.VersionedResource;
 import org.rest.common.event.MultipleResourcesRetrievedEvent;
 import org.rest.common.event.PaginatedResultsRetrievedEvent;
 import org.rest.common.event.ResourceCreatedEvent;
@@ -14,9 +18,15 @@ import org.rest.common.event.SingleResourceRetrievedEvent;
 import org.rest.common.exceptions.BadRequestException;
 import org.rest.common.exceptions.ConflictException;
 import org.rest.common.exceptions.ForbiddenException;
+import org.rest.common.exceptions.PreconditionFailedException;
 import org.rest.common.exceptions.ResourceNotFoundException;
 import org.rest.common.persistence.model.INameableEntity;
+import org.rest.common.persistence.model.IVersionedEntity;
+import org.rest.common.persistence.service.BulkItemResult;
+import org.rest.common.persistence.service.IConsumer;
 import org.rest.common.persistence.service.IService;
+import org.rest.common.persistence.service.KeysetPage;
+import org.rest.common.persistence.service.Slice;
 import org.rest.common.util.QueryConstants;
 import org.rest.common.web.RestPreconditions;
 import org.rest.common.web.WebConstants;
@@ -26,21 +36,39 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
 
 public abstract class AbstractController<T extends INameableEntity> {
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
+    private static final ObjectMapper DEFAULT_MAPPER = new ObjectMapper();
+
     private Class<T> clazz;
 
     @Autowired
     protected ApplicationEventPublisher eventPublisher;
 
+    @Autowired(required = false)
+    private EntityVersionRegistry versionRegistry;
+
+    /** the mapper of the JSON message converter, if the configuration exposes it */
+    @Autowired(required = false)
+    private ObjectMapper objectMapper;
+
     public AbstractController(final Class<T> clazzToSet) {
         super();
 
@@ -73,7 +101,11 @@ public abstract class AbstractController<T extends INameableEntity> {
     // find - one
 
     protected final T findOneInternal(final Long id, final UriComponentsBuilder uriBuilder, final HttpServletResponse response) {
+        final String stampBeforeRead = entityStampOf(id);
         final T resource = findOneInternal(id);
+        if (isResourceNotModified(resource, stampBeforeRead, currentRequest(), response)) {
+            return null;
+        }
 
         eventPublisher.publishEvent(new SingleResourceRetrievedEvent<T>(clazz, uriBuilder, response));
 
@@ -115,11 +147,41 @@ public abstract class AbstractController<T extends INameableEntity> {
         if (request.getParameterNames().hasMoreElements()) {
             throw new ResourceNotFoundException();
         }
+        if (isCollectionNotModified(request, response)) {
+            return null;
+        }
 
         eventPublisher.publishEvent(new MultipleResourcesRetrievedEvent<T>(clazz, uriBuilder, response));
         return getService().findAll();
     }
 
+    /**
+     * Writes the whole collection as a JSON array, one element at a time, as the rows are read - neither the entities nor the response body are ever held in memory in full. <br>
+     * - note: the status and headers are committed with the first element, so a failure part way through can only cut the response short
+     */
+    protected final void streamAllInternal(final HttpServletResponse response) throws IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding(JsonEncoding.UTF8.getJavaName());
+
+        final JsonGenerator generator = (objectMapper == null ? DEFAULT_MAPPER : objectMapper).getJsonFactory().createJsonGenerator(response.getOutputStream(), JsonEncoding.UTF8);
+        try {
+            generator.writeStartArray();
+            getService().streamAll(new IConsumer<T>() {
+                @Override
+                public final void accept(final T entity) {
+                    try {
+                        generator.writeObject(entity);
+                    } catch (final IOException ioEx) {
+                        throw Throwables.propagate(ioEx);
+                    }
+                }
+            });
+            generator.writeEndArray();
+        } finally {
+            generator.close();
+        }
+    }
+
     protected final void findAllRedirectToPagination(final UriComponentsBuilder uriBuilder, final HttpServletResponse response) {
         final String resourceName = clazz.getSimpleName().toString().toLowerCase();
         final String locationValue = uriBuilder.path(WebConstants.PATH_SEP + resourceName).build().encode().toUriString() + QueryConstants.QUESTIONMARK + "page=0&size=10";
@@ -128,6 +190,10 @@ public abstract class AbstractController<T extends INameableEntity> {
     }
 
     protected final List<T> findPaginatedAndSortedInternal(final int page, final int size, final String sortBy, final String sortOrder, final UriComponentsBuilder uriBuilder, final HttpServletResponse response) {
+        if (isCollectionNotModified(currentRequest(), response)) {
+            return null;
+        }
+
         Page<T> resultPage = null;
         try {
             resultPage = getService().findAllPaginatedAndSortedRaw(page, size, sortBy, sortOrder);
@@ -150,6 +216,10 @@ public abstract class AbstractController<T extends INameableEntity> {
     }
 
     protected final List<T> findPaginatedInternal(final int page, final int size, final String sortBy, final String sortOrder, final UriComponentsBuilder uriBuilder, final HttpServletResponse response) {
+        if (isCollectionNotModified(currentRequest(), response)) {
+            return null;
+        }
+
         Page<T> resultPage = null;
         try {
             resultPage = getService().findAllPaginatedAndSortedRaw(page, size, sortBy, sortOrder);
@@ -157,6 +227,10 @@ public abstract class AbstractController<T extends INameableEntity> {
             logger.error("InvalidDataAccessApiUsageException on find all operation");
             logger.warn("InvalidDataAccessApiUsageException on find all operation", apiEx);
             throw new BadRequestException(apiEx);
+        } catch (final IllegalArgumentException apiEx) { // thrown by PageRequest in case the page parameters are wrong
+            logger.error("IllegalArgumentException on find all operation");
+            logger.warn("IllegalArgumentException on find all operation", apiEx);
+            throw new BadRequestException(apiEx);
         }
 
         if (page > resultPage.getTotalPages()) {
@@ -167,6 +241,63 @@ public abstract class AbstractController<T extends INameableEntity> {
         return Lists.newArrayList(resultPage.getContent());
     }
 
+    /**
+     * Slice pagination - no total and no count query; the links only lead to the next and previous pages.
+     */
+    protected final List<T> findSliceInternal(final int page, final int size, final String sortBy, final String sortOrder, final UriComponentsBuilder uriBuilder, final HttpServletResponse response) {
+        if (isCollectionNotModified(currentRequest(), response)) {
+            return null;
+        }
+
+        Slice<T> resultSlice = null;
+        try {
+            resultSlice = getService().findAllSliced(page, size, sortBy, sortOrder);
+        } catch (final InvalidDataAccessApiUsageException apiEx) {
+            logger.error("InvalidDataAccessApiUsageException on find all operation");
+            logger.warn("InvalidDataAccessApiUsageException on find all operation", apiEx);
+            throw new BadRequestException(apiEx);
+        } catch (final IllegalArgumentException apiEx) { // thrown by PageRequest in case the page parameters are wrong
+            logger.error("IllegalArgumentException on find all operation");
+            logger.warn("IllegalArgumentException on find all operation", apiEx);
+            throw new BadRequestException(apiEx);
+        }
+
+        if (page > 0 && resultSlice.getContent().isEmpty()) {
+            throw new ResourceNotFoundException();
+        }
+        eventPublisher.publishEvent(new PaginatedResultsRetrievedEvent<T>(clazz, uriBuilder, response, page, size, resultSlice.hasNextPage()));
+
+        return Lists.newArrayList(resultSlice.getContent());
+    }
+
+    /**
+     * Keyset (seek) pagination - an empty or missing <code>after</code> starts from the beginning; the next cursor travels in the <code>next</code> link.
+     */
+    protected final List<T> findAllAfterInternal(final String after, final int size, final String sortBy, final String sortOrder, final UriComponentsBuilder uriBuilder, final HttpServletResponse response) {
+        if (isCollectionNotModified(currentRequest(), response)) {
+            return null;
+        }
+
+        final String cursor = after == null || after.isEmpty() ? null : after;
+        KeysetPage<T> resultPage = null;
+        try {
+            resultPage = getService().findAllAfter(cursor, size, sortBy, sortOrder);
+        } catch (final InvalidDataAccessApiUsageException apiEx) {
+            logger.error("InvalidDataAccessApiUsageException on find all operation");
+            logger.warn("InvalidDataAccessApiUsageException on find all operation", apiEx);
+            throw new BadRequestException(apiEx);
+        } catch (final IllegalArgumentException apiEx) { // thrown on an invalid cursor, or an unknown sort attribute
+            logger.error("IllegalArgumentException on find all operation");
+            logger.warn("IllegalArgumentException on find all operation", apiEx);
+            throw new BadRequestException(apiEx);
+        }
+
+        final String nextCursor = resultPage.hasNext() ? resultPage.getNext().encode() : null;
+        eventPublisher.publishEvent(new PaginatedResultsRetrievedEvent<T>(clazz, uriBuilder, response, cursor, nextCursor, size));
+
+        return Lists.newArrayList(resultPage.getContent());
+    }
+
     protected final List<T> findAllSortedInternal(final String sortBy, final String sortOrder) {
         List<T> resultPage = null;
         try {
@@ -215,18 +346,58 @@ public abstract class AbstractController<T extends INameableEntity> {
         eventPublisher.publishEvent(new ResourceCreatedEvent<T>(clazz, uriBuilder, response, resource.getId().toString()));
     }
 
+    /**
+     * - note: items are reported individually - a failing item does not fail the request
+     */
+    protected final List<BulkItemResult> createAllInternal(final List<T> resources) {
+        RestPreconditions.checkRequestElementNotNull(resources);
+        try {
+            return getService().createAll(resources);
+        } catch (final DataAccessException dataEx) {
+            logger.error("DataAccessException on bulk create operation");
+            logger.warn("DataAccessException on bulk create operation", dataEx);
+            throw new ConflictException(dataEx);
+        }
+    }
+
     // update
 
+    protected final List<BulkItemResult> updateAllInternal(final List<T> resources) {
+        RestPreconditions.checkRequestElementNotNull(resources);
+        try {
+            return getService().updateAll(resources);
+        } catch (final DataAccessException dataEx) {
+            logger.error("DataAccessException on bulk update operation");
+            logger.warn("DataAccessException on bulk update operation", dataEx);
+            throw new ConflictException(dataEx);
+        }
+    }
+
     /**
      * - note: the operation is IDEMPOTENT <br/>
      */
     protected final void updateInternal(final T resource) {
+        updateInternal(resource, null);
+    }
+
+    /**
+     * - note: the operation is IDEMPOTENT <br/>
+     * - note: for a versioned resource, the update is conditional on the ETag served on GET, replayed in <code>If-Match</code> (e.g. <code>"3"</code>), or, without the header, on the version in the body; <code>If-Match: *</code> updates unconditionally <br/>
+     * - note: a version that is no longer current fails the update with 412 when it came from <code>If-Match</code>, and 409 otherwise
+     */
+    protected final void updateInternal(final T resource, final String ifMatch) {
         RestPreconditions.checkRequestElementNotNull(resource);
         RestPreconditions.checkRequestElementNotNull(resource.getId());
-        RestPreconditions.checkNotNull(getService().findOne(resource.getId()));
+        applyIfMatch(resource, ifMatch);
 
         try {
             getService().update(resource);
+        } catch (final OptimisticLockingFailureException lockingEx) {
+            logger.info("OptimisticLockingFailureException on update operation for: {}", resource.getClass().getSimpleName());
+            if (ifMatch != null) {
+                throw new PreconditionFailedException(lockingEx);
+            }
+            throw new ConflictException(lockingEx);
         } catch (final IllegalStateException illegalState) {
             // this is so that the service layer can MANUALLY throw exceptions that get handled by the exception translation mechanism
             logger.error("IllegalArgumentException on create operation for: {}", resource.getClass().getSimpleName());
@@ -251,8 +422,9 @@ public abstract class AbstractController<T extends INameableEntity> {
     // delete/remove
 
     protected final void deleteByIdInternal(final long id) {
+        final boolean deleted;
         try {
-            getService().delete(id);
+            deleted = getService().deleteById(id);
         } catch (final InvalidDataAccessApiUsageException dataEx) {
             logger.error("InvalidDataAccessApiUsageException on delete operation");
             logger.warn("InvalidDataAccessApiUsageException on delete operation", dataEx);
@@ -260,11 +432,26 @@ public abstract class AbstractController<T extends INameableEntity> {
         } catch (final DataAccessException dataEx) {
             logger.error("DataAccessException on delete operation");
             logger.warn("DataAccessException on delete operation", dataEx);
+            throw new ConflictException(dataEx);
         } catch (final IllegalStateException stateEx) {
             logger.error("IllegalStateException on delete operation");
             logger.warn("IllegalStateException on delete operation", stateEx);
             throw new ResourceNotFoundException(stateEx);
         }
+        if (!deleted) {
+            throw new ResourceNotFoundException();
+        }
+    }
+
+    protected final List<BulkItemResult> deleteAllInternal(final List<Long> ids) {
+        RestPreconditions.checkRequestElementNotNull(ids);
+        try {
+            return getService().deleteAll(ids);
+        } catch (final DataAccessException dataEx) {
+            logger.error("DataAccessException on bulk delete operation");
+            logger.warn("DataAccessException on bulk delete operation", dataEx);
+            throw new ConflictException(dataEx);
+        }
     }
 
     // count
@@ -283,6 +470,126 @@ public abstract class AbstractController<T extends INameableEntity> {
         }
     }
 
+    // conditional requests
+
+    /**
+     * Answers <code>If-Modified-Since</code> on the collection from the modification clock of its entity type (and of the types its representation depends on), before any query runs. <br>
+     * - note: when not modified, the response is already a 304 and the caller should return without a body
+     */
+    protected final boolean isCollectionNotModified(final HttpServletRequest request, final HttpServletResponse response) {
+        if (versionRegistry == null || request == null) {
+            return false;
+        }
+
+        final VersionedResource versionedResource = AnnotationUtils.findAnnotation(getClass(), VersionedResource.class);
+        final long lastModified = versionedResource == null ? versionRegistry.getLastModified(clazz) : versionRegistry.getLastModified(versionedResource.value(), versionedResource.dependsOn());
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null || !EntityVersionRegistry.isSettled(lastModified)) {
+            // the ETag decides - it takes precedence over the date, and the date cannot tell apart two changes within the same second
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+            return false;
+        }
+        return new ServletWebRequest(request, response).checkNotModified(lastModified);
+    }
+
+    /**
+     * Tags a single versioned resource with its strong ETag (see {@link EntityVersionRegistry#getVersionETag}) and answers <code>If-None-Match</code> against it. <br>
+     * - the version is recorded, so that the next conditional GETs are answered before the entity is read (see {@link org.rest.common.caching.VersionETagInterceptor})
+     * 
+     * @param stampBeforeRead the stamp of the entity taken before it was read (see {@link EntityVersionRegistry#getEntityStamp})
+     */
+    protected final boolean isResourceNotModified(final T resource, final String stampBeforeRead, final HttpServletRequest request, final HttpServletResponse response) {
+        final Long version = resource instanceof IVersionedEntity ? ((IVersionedEntity) resource).getVersion() : null;
+        final String etag = versionETagOf(version);
+        if (etag == null || response == null) {
+            return false;
+        }
+        if (stampBeforeRead != null) {
+            versionRegistry.recordVersion(AnnotationUtils.findAnnotation(getClass(), VersionedResource.class).value(), resource.getId(), stampBeforeRead, version);
+        }
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        if (request != null && ETagComputeUtils.matchesAnyCoding(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the strong ETag of the given version of a resource of this controller, or null if the controller does not version its resources
+     */
+    private String versionETagOf(final Long version) {
+        final VersionedResource versionedResource = AnnotationUtils.findAnnotation(getClass(), VersionedResource.class);
+        if (version == null || versionRegistry == null || versionedResource == null) {
+            return null;
+        }
+        return versionRegistry.getVersionETag(version, versionedResource.dependsOn());
+    }
+
+    /**
+     * @return the stamp of the entity in the version registry, or null if the controller does not version its resources
+     */
+    private String entityStampOf(final long id) {
+        final VersionedResource versionedResource = AnnotationUtils.findAnnotation(getClass(), VersionedResource.class);
+        if (versionRegistry == null || versionedResource == null) {
+            return null;
+        }
+        return versionRegistry.getEntityStamp(versionedResource.value(), id);
+    }
+
+    private static HttpServletRequest currentRequest() {
+        final ServletRequestAttributes requestAttributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        return requestAttributes == null ? null : requestAttributes.getRequest();
+    }
+
+    /**
+     * The version the strong ETag in <code>If-Match</code> starts with (see {@link EntityVersionRegistry#getVersionETag}) becomes the version the update is checked against - only the version, so that neither a restart nor a change to the types the representation depends on fails the update; a weak tag never matches. <br>
+     * - note: <code>*</code> applies the update to whatever the current version is
+     */
+    private void applyIfMatch(final T resource, final String ifMatch) {
+        if (ifMatch == null) {
+            return;
+        }
+        final String value = ifMatch.trim();
+        if (!(resource instanceof IVersionedEntity)) {
+            if (value.equals("*")) {
+                return;
+            }
+            throw new PreconditionFailedException("The resource does not support conditional updates");
+        }
+        if (value.equals("*")) {
+            final T current = resource.getId() == null ? null : getService().findOne(resource.getId());
+            ((IVersionedEntity) resource).setVersion(current == null ? null : ((IVersionedEntity) current).getVersion());
+            return;
+        }
+
+        for (final String candidate : value.split(",")) {
+            final Long version = versionOf(candidate.trim());
+            if (version != null) {
+                ((IVersionedEntity) resource).setVersion(version);
+                return;
+            }
+        }
+        throw new PreconditionFailedException("If-Match carries no strong ETag of the resource: " + ifMatch);
+    }
+
+    /**
+     * @return the version a strong ETag was derived from (the digits up to the first separator - the dependency part, or the content coding suffix), or null if the tag is weak or was not derived from a version
+     */
+    private static Long versionOf(final String etag) {
+        if (!etag.startsWith("\"") || !etag.endsWith("\"") || etag.length() < 3) {
+            return null;
+        }
+        int end = 1;
+        while (end < etag.length() - 1 && Character.isDigit(etag.charAt(end))) {
+            end++;
+        }
+        if (end == 1 || end > 19 || "\".-".indexOf(etag.charAt(end)) < 0) {
+            return null;
+        }
+        return Long.valueOf(etag.substring(1, end));
+    }
+
     // template method
 
     protected abstract IService<T> getService();
@@ -10,9 +10,11 @@ import org.springframework.web.util.UriComponentsBuilder;
 
 public interface ISortingController<T extends IEntity> {
 
-    public List<T> findAllPaginatedAndSorted(final int page, final int size, final String sortBy, final String sortOrder, final UriComponentsBuilder uriBuilder, final HttpServletResponse response);
+    public List<T> findAllPaginatedAndSorted(final int page, final int size, final String sortBy, final String sortOrder, final boolean slice, final UriComponentsBuilder uriBuilder, final HttpServletResponse response);
 
-    public List<T> findAllPaginated(final int page, final int size, final UriComponentsBuilder uriBuilder, final HttpServletResponse response);
+    public List<T> findAllPaginated(final int page, final int size, final boolean slice, final UriComponentsBuilder uriBuilder, final HttpServletResponse response);
+
+    public List<T> findAllAfter(final String after, final int size, final String sortBy, final String sortOrder, final UriComponentsBuilder uriBuilder, final HttpServletResponse response);
 
     public List<T> findAllSorted(final String sortBy, final String sortOrder);
 
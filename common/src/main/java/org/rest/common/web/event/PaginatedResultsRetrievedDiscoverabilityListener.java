@@ -22,6 +22,8 @@ import com.google.common.net.HttpHeaders;
 final class PaginatedResultsRetrievedDiscoverabilityListener implements ApplicationListener<PaginatedResultsRetrievedEvent> {
 
     private static final String PAGE = "page";
+    private static final String AFTER = "after";
+    private static final String SLICE = "slice";
 
     public PaginatedResultsRetrievedDiscoverabilityListener() {
         super();
@@ -33,6 +35,14 @@ final class PaginatedResultsRetrievedDiscoverabilityListener implements Applicat
     public final void onApplicationEvent(final PaginatedResultsRetrievedEvent ev) {
         Preconditions.checkNotNull(ev);
 
+        if (ev.isKeyset()) {
+            addLinkHeaderOnKeysetResourceRetrieval(ev.getUriBuilder(), ev.getResponse(), ev.getClazz(), ev.getCursor(), ev.getNextCursor(), ev.getPageSize());
+            return;
+        }
+        if (ev.isSlice()) {
+            addLinkHeaderOnSlicedResourceRetrieval(ev.getUriBuilder(), ev.getResponse(), ev.getClazz(), ev.getPage(), ev.hasNextPage(), ev.getPageSize());
+            return;
+        }
         addLinkHeaderOnPagedResourceRetrieval(ev.getUriBuilder(), ev.getResponse(), ev.getClazz(), ev.getPage(), ev.getTotalPages(), ev.getPageSize());
     }
 
@@ -69,6 +79,56 @@ final class PaginatedResultsRetrievedDiscoverabilityListener implements Applicat
         }
     }
 
+    /**
+     * - note: a slice does not know the total, so there are only <code>next</code> and <code>prev</code> links
+     */
+    final void addLinkHeaderOnSlicedResourceRetrieval(final UriComponentsBuilder uriBuilder, final HttpServletResponse response, final Class clazz, final int page, final boolean hasNextPage, final int pageSize) {
+        final String resourceName = clazz.getSimpleName().toString().toLowerCase();
+        uriBuilder.path(PATH_SEP + resourceName + "s").replaceQueryParam(SLICE, true);
+
+        final StringBuilder linkHeader = new StringBuilder();
+        if (hasNextPage) {
+            final String uriForNextPage = constructNextPageUri(uriBuilder, page, pageSize);
+            linkHeader.append(createLinkHeader(uriForNextPage, REL_NEXT));
+        }
+        if (hasPreviousPage(page)) {
+            final String uriForPrevPage = constructPrevPageUri(uriBuilder, page, pageSize);
+            appendCommaIfNecessary(linkHeader);
+            linkHeader.append(createLinkHeader(uriForPrevPage, REL_PREV));
+        }
+
+        if (linkHeader.length() > 0) {
+            response.addHeader(HttpHeaders.LINK, linkHeader.toString());
+        }
+    }
+
+    /**
+     * - note: a keyset page only knows the way forward - there is a <code>next</code> link (while there are more elements) and a <code>first</code> link, but no <code>prev</code> or <code>last</code>
+     */
+    final void addLinkHeaderOnKeysetResourceRetrieval(final UriComponentsBuilder uriBuilder, final HttpServletResponse response, final Class clazz, final String cursor, final String nextCursor, final int pageSize) {
+        final String resourceName = clazz.getSimpleName().toString().toLowerCase();
+        uriBuilder.path(PATH_SEP + resourceName + "s");
+
+        final StringBuilder linkHeader = new StringBuilder();
+        if (nextCursor != null) {
+            final String uriForNextPage = constructAfterCursorUri(uriBuilder, nextCursor, pageSize);
+            linkHeader.append(createLinkHeader(uriForNextPage, REL_NEXT));
+        }
+        if (cursor != null && !cursor.isEmpty()) {
+            final String uriForFirstPage = constructAfterCursorUri(uriBuilder, "", pageSize);
+            appendCommaIfNecessary(linkHeader);
+            linkHeader.append(createLinkHeader(uriForFirstPage, REL_FIRST));
+        }
+
+        if (linkHeader.length() > 0) {
+            response.addHeader(HttpHeaders.LINK, linkHeader.toString());
+        }
+    }
+
+    final String constructAfterCursorUri(final UriComponentsBuilder uriBuilder, final String cursor, final int size) {
+        return uriBuilder.replaceQueryParam(AFTER, cursor).replaceQueryParam("size", size).build().encode().toUriString();
+    }
+
     final String constructNextPageUri(final UriComponentsBuilder uriBuilder, final int page, final int size) {
         return uriBuilder.replaceQueryParam(PAGE, page + 1).replaceQueryParam("size", size).build().encode().toUriString();
     }
@@ -0,0 +1,52 @@
+package org.rest.common.web.util;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+import org.hibernate.collection.spi.PersistentCollection;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * Writes an association that the fetch plan of the operation left unloaded as <code>null</code>, instead of loading it (one statement per entity) or failing outside the transaction. <br>
+ * - a list is read with a shallower plan than a single resource, so e.g. the roles in a list of roles come without their privileges
+ */
+public final class UnloadedAssociationsModule extends SimpleModule {
+
+    public UnloadedAssociationsModule() {
+        super(UnloadedAssociationsModule.class.getSimpleName(), Version.unknownVersion());
+
+        addSerializer(PersistentCollection.class, new PersistentCollectionSerializer());
+    }
+
+    static final class PersistentCollectionSerializer extends JsonSerializer<PersistentCollection> {
+
+        @Override
+        public final void serialize(final PersistentCollection value, final JsonGenerator jgen, final SerializerProvider provider) throws IOException, JsonProcessingException {
+            if (!value.wasInitialized()) {
+                jgen.writeNull();
+            } else if (value instanceof Map) {
+                jgen.writeStartObject();
+                for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    jgen.writeFieldName(String.valueOf(entry.getKey()));
+                    provider.defaultSerializeValue(entry.getValue(), jgen);
+                }
+                jgen.writeEndObject();
+            } else {
+                jgen.writeStartArray();
+                for (final Object element : (Collection<?>) value) {
+                    provider.defaultSerializeValue(element, jgen);
+                }
+                jgen.writeEndArray();
+            }
+        }
+
+    }
+
+}
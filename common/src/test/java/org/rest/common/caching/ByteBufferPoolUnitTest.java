@@ -0,0 +1,76 @@
+package org.rest.common.caching;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public final class ByteBufferPoolUnitTest {
+
+    private ByteBufferPool instance;
+
+    @Before
+    public final void before() {
+        instance = new ByteBufferPool();
+    }
+
+    // tests
+
+    @Test
+    public final void whenBufferIsAcquired_thenItHasAtLeastTheRequestedCapacity() {
+        assertThat(instance.acquire(5000).capacity(), greaterThanOrEqualTo(5000));
+    }
+
+    @Test
+    public final void givenBufferWasReleased_whenSameSizeIsAcquired_thenItIsReused() {
+        final ByteBuffer buffer = instance.acquire(1000);
+        instance.release(buffer);
+
+        // When
+        final ByteBuffer reused = instance.acquire(2000);
+
+        // Then
+        assertThat(reused, sameInstance(buffer));
+        assertThat(instance.getHits(), equalTo(1l));
+        assertThat(instance.getMisses(), equalTo(1l));
+    }
+
+    @Test
+    public final void givenBufferLargerThanAnySizeClass_whenReleased_thenItIsDropped() {
+        instance.release(instance.acquire(2 * 1024 * 1024));
+
+        assertThat(instance.getDropped(), equalTo(1l));
+        assertThat(instance.getPooled(), equalTo(0));
+    }
+
+    @Test
+    public final void givenBodyGrowsPastOneSizeClass_whenWritten_thenBodyIsIntactAndBuffersAreReturned() throws IOException {
+        final ETagResponseStream stream = new ETagResponseStream(Mockito.mock(HttpServletResponse.class), ETagStrategies.MD5.digest(), 64 * 1024, instance);
+        final byte[] body = new byte[10000];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) i;
+        }
+
+        // When
+        stream.write(body, 0, 3000);
+        stream.write(body, 3000, 7000);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        stream.writeBufferTo(out);
+        stream.release();
+
+        // Then
+        assertThat(out.toByteArray(), equalTo(body));
+        assertThat(instance.getPooled(), equalTo(2));
+    }
+
+}
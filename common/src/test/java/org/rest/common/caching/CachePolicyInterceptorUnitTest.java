@@ -0,0 +1,92 @@
+package org.rest.common.caching;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+public final class CachePolicyInterceptorUnitTest {
+
+    private final CachePolicyInterceptor instance = new CachePolicyInterceptor();
+
+    // tests
+
+    @Test
+    public final void givenSharedPolicy_whenCacheControlIsComputed_thenItIsPublic() {
+        assertThat(CachePolicyInterceptor.cacheControlOf(SharedController.class.getAnnotation(CachePolicy.class)), equalTo("public, max-age=60, s-maxage=600, stale-while-revalidate=30"));
+    }
+
+    @Test
+    public final void givenPrivatePolicy_whenCacheControlIsComputed_thenItIsPrivateAndHasNoSharedMaxAge() {
+        assertThat(CachePolicyInterceptor.cacheControlOf(PrivateController.class.getAnnotation(CachePolicy.class)), equalTo("private, max-age=0, must-revalidate"));
+    }
+
+    @Test
+    public final void givenMethodLevelPolicy_whenGetIsHandled_thenMethodPolicyWins() throws NoSuchMethodException {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        instance.postHandle(new MockHttpServletRequest("GET", "/"), response, new HandlerMethod(new SharedController(), "count"), null);
+
+        // Then
+        assertThat((String) response.getHeader("Cache-Control"), equalTo("public, max-age=5"));
+        assertThat((String) response.getHeader("Vary"), equalTo("Authorization"));
+    }
+
+    @Test
+    public final void whenPutIsHandled_thenNoCacheControlIsEmitted() throws NoSuchMethodException {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        instance.postHandle(new MockHttpServletRequest("PUT", "/"), response, new HandlerMethod(new SharedController(), "count"), null);
+
+        // Then
+        assertThat(response.getHeader("Cache-Control"), nullValue());
+    }
+
+    @Test
+    public final void whenGetIsAnsweredWithNotFound_thenNoCacheControlIsEmitted() throws NoSuchMethodException {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setStatus(404);
+
+        // When
+        instance.postHandle(new MockHttpServletRequest("GET", "/"), response, new HandlerMethod(new SharedController(), "count"), null);
+        instance.afterCompletion(new MockHttpServletRequest("GET", "/"), response, new HandlerMethod(new SharedController(), "count"), null);
+
+        // Then
+        assertThat(response.getHeader("Cache-Control"), nullValue());
+        assertThat(response.getHeader("Vary"), nullValue());
+    }
+
+    @Test
+    public final void whenGetIsAnsweredWithNotModifiedBeforeTheHandler_thenCacheControlIsEmittedOnCompletion() throws NoSuchMethodException {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setStatus(304);
+
+        // When
+        instance.afterCompletion(new MockHttpServletRequest("GET", "/"), response, new HandlerMethod(new SharedController(), "count"), null);
+
+        // Then
+        assertThat((String) response.getHeader("Cache-Control"), equalTo("public, max-age=5"));
+    }
+
+    // util
+
+    @CachePolicy(maxAge = 60, sharedMaxAge = 600, staleWhileRevalidate = 30)
+    static class SharedController {
+        @CachePolicy(maxAge = 5)
+        public long count() {
+            return 0;
+        }
+    }
+
+    @CachePolicy(maxAge = 0, sharedMaxAge = 600, privateCache = true, mustRevalidate = true)
+    static class PrivateController {
+        //
+    }
+
+}
@@ -0,0 +1,77 @@
+package org.rest.common.caching;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.io.ByteStreams;
+
+public final class CompressedBodyCacheUnitTest {
+
+    private CompressedBodyCache instance;
+
+    @Before
+    public final void before() {
+        instance = new CompressedBodyCache();
+        ReflectionTestUtils.setField(instance, "enabled", true);
+        ReflectionTestUtils.setField(instance, "minSize", 16);
+        ReflectionTestUtils.setField(instance, "maxBytes", 1024l);
+    }
+
+    // tests
+
+    @Test
+    public final void whenBothEncodingsAreAccepted_thenGzipIsPreferred() {
+        assertThat(CompressedBodyCache.negotiate("deflate, gzip;q=0.5"), equalTo(CompressedBodyCache.GZIP));
+    }
+
+    @Test
+    public final void whenGzipIsRefused_thenDeflateIsUsed() {
+        assertThat(CompressedBodyCache.negotiate("gzip;q=0, deflate"), equalTo(CompressedBodyCache.DEFLATE));
+    }
+
+    @Test
+    public final void whenNoEncodingIsAccepted_thenBodyIsNotCompressed() {
+        assertThat(CompressedBodyCache.negotiate("identity"), nullValue());
+    }
+
+    @Test
+    public final void givenBodyBelowMinimumSize_whenEncodingIsNegotiated_thenBodyIsNotCompressed() {
+        assertThat(instance.encodingFor("gzip", 15), nullValue());
+    }
+
+    @Test
+    public final void whenBodyIsCompressed_thenItDecompressesToTheOriginal() throws IOException {
+        final byte[] body = "{\"id\":1,\"name\":\"ROLE_ADMIN\"}".getBytes("UTF-8");
+
+        // When
+        final byte[] compressed = instance.compress("\"abc\"", CompressedBodyCache.GZIP, body);
+
+        // Then
+        assertThat(ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed))), equalTo(body));
+    }
+
+    @Test
+    public final void givenBodyWasCompressed_whenCompressedAgainForTheSameETag_thenCachedBodyIsReturned() throws IOException {
+        final byte[] body = "{\"id\":1,\"name\":\"ROLE_ADMIN\"}".getBytes("UTF-8");
+        final byte[] compressed = instance.compress("\"abc\"", CompressedBodyCache.GZIP, body);
+
+        assertThat(instance.compress("\"abc\"", CompressedBodyCache.GZIP, body), sameInstance(compressed));
+    }
+
+    @Test
+    public final void whenStrongETagIsEncoded_thenEncodingIsAppended() {
+        assertThat(ETagContentFilter.encodedToken("\"abc\"", CompressedBodyCache.GZIP), equalTo("\"abc-gzip\""));
+        assertThat(ETagContentFilter.encodedToken("W/\"abc\"", CompressedBodyCache.GZIP), equalTo("W/\"abc\""));
+    }
+
+}
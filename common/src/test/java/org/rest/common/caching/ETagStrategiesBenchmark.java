@@ -0,0 +1,79 @@
+package org.rest.common.caching;
+
+import java.nio.charset.Charset;
+
+/**
+ * Throughput comparison of the {@link ETagStrategy} implementations over Role and Principal shaped JSON payloads. <br>
+ * - not a test; run the <code>main</code> method directly (warm-up iterations are discarded)
+ */
+public final class ETagStrategiesBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final int OPERATIONS_PER_ROUND = 20000;
+
+    private ETagStrategiesBenchmark() {
+        throw new AssertionError();
+    }
+
+    public static void main(final String[] args) {
+        final byte[] roles = rolesJson(20, 10);
+        final byte[] principals = principalsJson(200);
+
+        for (final ETagStrategy strategy : new ETagStrategy[] { ETagStrategies.MD5, ETagStrategies.SHA1, ETagStrategies.MURMUR3 }) {
+            System.out.println(strategy.name() + " roles (" + roles.length + " bytes): " + measure(strategy, roles) + " MB/s");
+            System.out.println(strategy.name() + " principals (" + principals.length + " bytes): " + measure(strategy, principals) + " MB/s");
+        }
+    }
+
+    // util
+
+    static long measure(final ETagStrategy strategy, final byte[] body) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += round(strategy, body);
+        }
+        final long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink += round(strategy, body);
+        }
+        final long elapsed = System.nanoTime() - start;
+        if (sink == 42) {
+            System.out.print(""); // keeps the result alive
+        }
+
+        final long bytes = (long) body.length * OPERATIONS_PER_ROUND * MEASURED_ROUNDS;
+        return bytes * 1000 / Math.max(elapsed, 1);
+    }
+
+    static long round(final ETagStrategy strategy, final byte[] body) {
+        long sink = 0;
+        for (int i = 0; i < OPERATIONS_PER_ROUND; i++) {
+            final ETagStrategy.Digest digest = strategy.digest();
+            digest.update(body, 0, body.length);
+            sink += ETagComputeUtils.toHexString(digest.digest()).charAt(0);
+        }
+        return sink;
+    }
+
+    static byte[] rolesJson(final int roles, final int privilegesPerRole) {
+        final StringBuilder json = new StringBuilder("[");
+        for (int r = 0; r < roles; r++) {
+            json.append(r == 0 ? "" : ",").append("{\"id\":").append(r).append(",\"name\":\"ROLE_").append(r).append("\",\"privileges\":[");
+            for (int p = 0; p < privilegesPerRole; p++) {
+                json.append(p == 0 ? "" : ",").append("{\"id\":").append(p).append(",\"name\":\"CAN_PRIVILEGE_").append(p).append("\",\"description\":\"privilege ").append(p).append("\"}");
+            }
+            json.append("]}");
+        }
+        return json.append(']').toString().getBytes(Charset.forName("UTF-8"));
+    }
+
+    static byte[] principalsJson(final int principals) {
+        final StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < principals; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"user").append(i).append("@example.org\",\"password\":null,\"roles\":[{\"id\":1,\"name\":\"ROLE_USER\",\"privileges\":[]}]}");
+        }
+        return json.append(']').toString().getBytes(Charset.forName("UTF-8"));
+    }
+
+}
@@ -0,0 +1,62 @@
+package org.rest.common.caching;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+public final class ETagStrategiesUnitTest {
+
+    private static final byte[] BODY = "{\"id\":1,\"name\":\"ROLE_ADMIN\",\"privileges\":[{\"id\":1,\"name\":\"CAN_PRIVILEGE_READ\"}]}".getBytes(Charset.forName("UTF-8"));
+
+    // tests
+
+    @Test
+    public final void whenBytesAreHexEncoded_thenLeadingZerosAreKept() {
+        assertThat(ETagComputeUtils.toHexString(new byte[] { 0, 1, (byte) 0xab, (byte) 0xff }), equalTo("0001abff"));
+    }
+
+    @Test
+    public final void whenMd5IsComputed_thenItMatchesTheKnownValue() {
+        assertThat(ETagComputeUtils.getMd5Digest(new byte[0]), equalTo("d41d8cd98f00b204e9800998ecf8427e"));
+    }
+
+    @Test
+    public final void givenDigestWasUsedBefore_whenSameBodyIsDigestedAgain_thenResultIsTheSame() {
+        for (final ETagStrategy strategy : new ETagStrategy[] { ETagStrategies.MD5, ETagStrategies.SHA1, ETagStrategies.MURMUR3 }) {
+            final String first = hash(strategy, BODY);
+            hash(strategy, new byte[] { 1, 2, 3 });
+
+            assertThat(hash(strategy, BODY), equalTo(first));
+        }
+    }
+
+    @Test
+    public final void givenDifferentBodies_whenDigested_thenResultsDiffer() {
+        for (final ETagStrategy strategy : new ETagStrategy[] { ETagStrategies.MD5, ETagStrategies.SHA1, ETagStrategies.MURMUR3 }) {
+            assertThat(hash(strategy, BODY), not(equalTo(hash(strategy, new byte[] { 1, 2, 3 }))));
+        }
+    }
+
+    @Test
+    public final void whenStrategyIsLookedUpByName_thenItIsFound() {
+        assertThat(ETagStrategies.forName("Murmur3 "), equalTo(ETagStrategies.MURMUR3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void whenUnknownStrategyIsLookedUp_thenException() {
+        ETagStrategies.forName("crc32");
+    }
+
+    // util
+
+    static String hash(final ETagStrategy strategy, final byte[] body) {
+        final ETagStrategy.Digest digest = strategy.digest();
+        digest.update(body, 0, body.length);
+        return ETagComputeUtils.toHexString(digest.digest());
+    }
+
+}
@@ -0,0 +1,203 @@
+package org.rest.common.caching;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.rest.common.persistence.event.AfterEntityCreatedEvent;
+import org.rest.common.persistence.event.AfterEntityUpdateEvent;
+import org.rest.common.persistence.model.IEntity;
+
+public final class EntityVersionRegistryUnitTest {
+
+    @SuppressWarnings("unchecked")
+    private static final Class<? extends IEntity>[] NO_DEPENDENCIES = new Class[] {};
+
+    private EntityVersionRegistry instance;
+
+    @Before
+    public final void before() {
+        instance = new EntityVersionRegistry();
+    }
+
+    // tests
+
+    @Test
+    public final void givenNoChanges_whenETagIsComputedTwice_thenETagsAreEqual() {
+        assertThat(instance.getETag(Foo.class, 1l, NO_DEPENDENCIES, null), equalTo(instance.getETag(Foo.class, 1l, NO_DEPENDENCIES, null)));
+    }
+
+    @Test
+    public final void whenEntityIsUpdated_thenItsETagChanges() {
+        final String before = instance.getETag(Foo.class, 1l, NO_DEPENDENCIES, null);
+
+        // When
+        instance.onApplicationEvent(new AfterEntityUpdateEvent<Foo>(this, Foo.class, new Foo(1l)));
+
+        // Then
+        assertThat(instance.getETag(Foo.class, 1l, NO_DEPENDENCIES, null), not(equalTo(before)));
+    }
+
+    @Test
+    public final void whenAnotherEntityIsUpdated_thenETagDoesNotChange() {
+        final String before = instance.getETag(Foo.class, 1l, NO_DEPENDENCIES, null);
+
+        // When
+        instance.onApplicationEvent(new AfterEntityUpdateEvent<Foo>(this, Foo.class, new Foo(2l)));
+
+        // Then
+        assertThat(instance.getETag(Foo.class, 1l, NO_DEPENDENCIES, null), equalTo(before));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public final void whenDependencyIsCreated_thenETagChanges() {
+        final Class<? extends IEntity>[] dependsOn = new Class[] { Bar.class };
+        final String before = instance.getETag(Foo.class, 1l, dependsOn, null);
+
+        // When
+        instance.onApplicationEvent(new AfterEntityCreatedEvent<Bar>(this, Bar.class, new Bar(7l)));
+
+        // Then
+        assertThat(instance.getETag(Foo.class, 1l, dependsOn, null), not(equalTo(before)));
+    }
+
+    @Test
+    public final void givenDifferentVariants_whenETagIsComputed_thenETagsDiffer() {
+        assertThat(instance.getETag(Foo.class, 1l, NO_DEPENDENCIES, "application/json"), not(equalTo(instance.getETag(Foo.class, 1l, NO_DEPENDENCIES, "application/xml"))));
+    }
+
+    @Test
+    public final void whenVersionETagIsComputed_thenETagIsStrongAndDerivedFromTheVersion() {
+        assertThat(instance.getVersionETag(3l, NO_DEPENDENCIES), equalTo("\"3\""));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public final void whenDependencyIsCreated_thenVersionETagChanges() {
+        final Class<? extends IEntity>[] dependsOn = new Class[] { Bar.class };
+        final String before = instance.getVersionETag(3l, dependsOn);
+
+        // When
+        instance.onApplicationEvent(new AfterEntityCreatedEvent<Bar>(this, Bar.class, new Bar(7l)));
+
+        // Then
+        assertThat(instance.getVersionETag(3l, dependsOn), not(equalTo(before)));
+    }
+
+    @Test
+    public final void givenVersionWasRecorded_whenEntityIsUnchanged_thenRecordedVersionIsKnown() {
+        instance.recordVersion(Foo.class, 1l, instance.getEntityStamp(Foo.class, 1l), 3l);
+
+        // When
+        final Long version = instance.getRecordedVersion(Foo.class, 1l);
+
+        // Then
+        assertThat(version, equalTo(3l));
+    }
+
+    @Test
+    public final void givenVersionWasRecorded_whenEntityIsUpdated_thenRecordedVersionIsNoLongerKnown() {
+        instance.recordVersion(Foo.class, 1l, instance.getEntityStamp(Foo.class, 1l), 3l);
+
+        // When
+        instance.onApplicationEvent(new AfterEntityUpdateEvent<Foo>(this, Foo.class, new Foo(1l)));
+
+        // Then
+        assertThat(instance.getRecordedVersion(Foo.class, 1l), nullValue());
+    }
+
+    @Test
+    public final void givenEntityWasUpdatedWhileItWasRead_whenVersionIsRecorded_thenRecordedVersionIsNotKnown() {
+        final String stampBeforeRead = instance.getEntityStamp(Foo.class, 1l);
+        instance.onApplicationEvent(new AfterEntityUpdateEvent<Foo>(this, Foo.class, new Foo(1l)));
+
+        // When
+        instance.recordVersion(Foo.class, 1l, stampBeforeRead, 3l);
+
+        // Then
+        assertThat(instance.getRecordedVersion(Foo.class, 1l), nullValue());
+    }
+
+    @Test
+    public final void givenVersionETag_whenComparedStronglyWithItsCompressedForm_thenETagsMatch() {
+        assertThat(ETagComputeUtils.matchesStrongly("\"3-gzip\"", instance.getVersionETag(3l, NO_DEPENDENCIES)), equalTo(true));
+    }
+
+    @Test
+    public final void givenVersionETag_whenComparedStronglyWithItsWeakForm_thenETagsDoNotMatch() {
+        assertThat(ETagComputeUtils.matchesStrongly("W/\"3\"", instance.getVersionETag(3l, NO_DEPENDENCIES)), equalTo(false));
+    }
+
+    @Test
+    public final void whenEntityIsUpdatedTwiceWithinOneSecond_thenLastModifiedIsNeverAheadOfTheCurrentTime() {
+        final long before = instance.getLastModified(Foo.class);
+
+        // When
+        instance.onApplicationEvent(new AfterEntityUpdateEvent<Foo>(this, Foo.class, new Foo(1l)));
+        instance.onApplicationEvent(new AfterEntityUpdateEvent<Foo>(this, Foo.class, new Foo(1l)));
+
+        // Then
+        assertThat(instance.getLastModified(Foo.class), greaterThanOrEqualTo(before));
+        assertThat(instance.getLastModified(Foo.class), lessThanOrEqualTo(System.currentTimeMillis()));
+        assertThat(instance.getLastModified(Foo.class) % 1000, equalTo(0l));
+    }
+
+    @Test
+    public final void givenLastModifiedInAPastSecond_thenItIsSettled() {
+        assertThat(EntityVersionRegistry.isSettled(EntityVersionRegistry.wholeSeconds(System.currentTimeMillis()) - 1000), equalTo(true));
+    }
+
+    @Test
+    public final void givenLastModifiedNotInAPastSecond_thenItIsNotSettled() {
+        assertThat(EntityVersionRegistry.isSettled(EntityVersionRegistry.wholeSeconds(System.currentTimeMillis()) + 1000), equalTo(false));
+    }
+
+    @Test
+    public final void whenDependencyIsCreated_thenLastModifiedOfCollectionAdvances() {
+        instance.versionsOf(Foo.class).lastModified.set(0l);
+        instance.versionsOf(Bar.class).lastModified.set(0l);
+        final long beforeFoo = instance.getLastModified(Foo.class);
+        final long before = instance.getLastModified(Foo.class, Bar.class);
+
+        // When
+        instance.onApplicationEvent(new AfterEntityCreatedEvent<Bar>(this, Bar.class, new Bar(7l)));
+
+        // Then
+        assertThat(instance.getLastModified(Foo.class, Bar.class), greaterThan(before));
+        assertThat(instance.getLastModified(Foo.class), equalTo(beforeFoo));
+    }
+
+    // util
+
+    static class Foo implements IEntity {
+        private Long id;
+
+        Foo(final Long idToSet) {
+            id = idToSet;
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public void setId(final Long idToSet) {
+            id = idToSet;
+        }
+    }
+
+    static final class Bar extends Foo {
+        Bar(final Long idToSet) {
+            super(idToSet);
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+package org.rest.common.caching;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.rest.common.caching.EntityVersionRegistryUnitTest.Bar;
+import org.rest.common.caching.EntityVersionRegistryUnitTest.Foo;
+import org.rest.common.caching.RepresentationCache.CachedRepresentation;
+import org.rest.common.caching.RepresentationCache.ResourceTags;
+import org.rest.common.persistence.event.AfterEntityCreatedEvent;
+import org.rest.common.persistence.event.AfterEntityUpdateEvent;
+import org.rest.common.persistence.model.IEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public final class RepresentationCacheUnitTest {
+
+    @SuppressWarnings("unchecked")
+    private static final Class<? extends IEntity>[] DEPENDS_ON_BAR = new Class[] { Bar.class };
+
+    private EntityVersionRegistry versionRegistry;
+    private RepresentationCache instance;
+
+    @Before
+    public final void before() {
+        versionRegistry = new EntityVersionRegistry();
+        instance = new RepresentationCache();
+        ReflectionTestUtils.setField(instance, "versionRegistry", versionRegistry);
+        ReflectionTestUtils.setField(instance, "enabled", true);
+        ReflectionTestUtils.setField(instance, "maxBytes", 1024l);
+    }
+
+    // tests
+
+    @Test
+    public final void givenRepresentationIsCached_whenNothingChanges_thenItIsServed() {
+        final String key = cache("/api/foo/1", 1l);
+
+        assertThat(instance.get(key), notNullValue());
+    }
+
+    @Test
+    public final void givenRepresentationIsCached_whenEntityIsUpdated_thenItIsEvicted() {
+        final String key = cache("/api/foo/1", 1l);
+
+        // When
+        onUpdate(new Foo(1l));
+
+        // Then
+        assertThat(instance.get(key), nullValue());
+    }
+
+    @Test
+    public final void givenRepresentationIsCached_whenAnotherEntityIsUpdated_thenItIsStillServed() {
+        final String key = cache("/api/foo/1", 1l);
+
+        // When
+        onUpdate(new Foo(2l));
+
+        // Then
+        assertThat(instance.get(key), notNullValue());
+    }
+
+    @Test
+    public final void givenCollectionIsCached_whenEntityIsCreated_thenItIsEvicted() {
+        final String key = cache("/api/foo", null);
+
+        // When
+        final AfterEntityCreatedEvent<Foo> event = new AfterEntityCreatedEvent<Foo>(this, Foo.class, new Foo(3l));
+        versionRegistry.onApplicationEvent(event);
+        instance.onApplicationEvent(event);
+
+        // Then
+        assertThat(instance.get(key), nullValue());
+    }
+
+    @Test
+    public final void givenRepresentationIsCached_whenDependencyIsCreated_thenItIsEvicted() {
+        final String key = cache("/api/foo/1", 1l);
+
+        // When
+        final AfterEntityCreatedEvent<Bar> event = new AfterEntityCreatedEvent<Bar>(this, Bar.class, new Bar(7l));
+        versionRegistry.onApplicationEvent(event);
+        instance.onApplicationEvent(event);
+
+        // Then
+        assertThat(instance.get(key), nullValue());
+    }
+
+    @Test
+    public final void givenEntityChangedWhileResponseWasBuilt_whenStoring_thenNothingIsCached() {
+        final MockHttpServletRequest request = tag(new MockHttpServletRequest("GET", "/api/foo/1"), 1l);
+        final String key = instance.keyFor(request);
+
+        // When
+        onUpdate(new Foo(1l));
+        instance.put(key, request, representation());
+
+        // Then
+        assertThat(instance.get(key), nullValue());
+    }
+
+    @Test
+    public final void givenRepresentationsAreCached_whenTheirEntitiesAreUpdated_thenNoTagIsLeftInTheIndex() {
+        for (long id = 1; id <= 100; id++) {
+            cache("/api/foo/" + id, id);
+        }
+
+        // When
+        for (long id = 1; id <= 100; id++) {
+            onUpdate(new Foo(id));
+        }
+
+        // Then
+        assertThat(instance.indexedTags(), equalTo(0));
+    }
+
+    @Test
+    public final void whenRequestIsNotGet_thenItIsNotEligible() {
+        assertThat(instance.keyFor(new MockHttpServletRequest("PUT", "/api/foo/1")), nullValue());
+    }
+
+    // util
+
+    private String cache(final String uri, final Long id) {
+        final MockHttpServletRequest request = tag(new MockHttpServletRequest("GET", uri), id);
+        final String key = instance.keyFor(request);
+        instance.put(key, request, representation());
+        return key;
+    }
+
+    private MockHttpServletRequest tag(final MockHttpServletRequest request, final Long id) {
+        final String stamp = versionRegistry.getStamp(Foo.class, id, DEPENDS_ON_BAR);
+        request.setAttribute(RepresentationCache.TAGS_ATTRIBUTE, new ResourceTags(Foo.class, id, DEPENDS_ON_BAR, stamp));
+        return request;
+    }
+
+    private void onUpdate(final Foo entity) {
+        final AfterEntityUpdateEvent<Foo> event = new AfterEntityUpdateEvent<Foo>(this, Foo.class, entity);
+        versionRegistry.onApplicationEvent(event);
+        instance.onApplicationEvent(event);
+    }
+
+    private CachedRepresentation representation() {
+        return new CachedRepresentation(new byte[] { 1, 2, 3 }, "\"etag\"", "application/json", Collections.<String> emptyList(), null, null);
+    }
+
+}
@@ -0,0 +1,184 @@
+package org.rest.common.persistence;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.rest.common.persistence.event.AfterEntitiesDeletedEvent;
+import org.rest.common.persistence.event.AfterEntityCreatedEvent;
+import org.rest.common.persistence.event.AfterEntityDeleteEvent;
+import org.rest.common.persistence.model.IEntity;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.base.Supplier;
+
+public final class EntityCountServiceUnitTest {
+
+    private EntityCountService instance;
+
+    private CountingLoader loader;
+
+    @Before
+    public final void before() {
+        instance = new EntityCountService();
+        loader = new CountingLoader(10);
+    }
+
+    @After
+    public final void after() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    // tests
+
+    @Test
+    public final void whenCountedTwice_thenCountIsLoadedOnce() {
+        instance.count(Foo.class, loader);
+
+        // When
+        final long count = instance.count(Foo.class, loader);
+
+        // Then
+        assertThat(count, equalTo(10l));
+        assertThat(loader.loads.get(), equalTo(1));
+    }
+
+    @Test
+    public final void givenCountIsKnown_whenEntitiesAreCreatedAndDeleted_thenCountIsMaintainedWithoutLoading() {
+        instance.count(Foo.class, loader);
+
+        // When
+        instance.onApplicationEvent(new AfterEntityCreatedEvent<Foo>(this, Foo.class, new Foo(1l)));
+        instance.onApplicationEvent(new AfterEntityCreatedEvent<Foo>(this, Foo.class, new Foo(2l)));
+        instance.onApplicationEvent(new AfterEntityDeleteEvent<Foo>(this, Foo.class, new Foo(1l)));
+
+        // Then
+        assertThat(instance.count(Foo.class, loader), equalTo(11l));
+        assertThat(loader.loads.get(), equalTo(1));
+    }
+
+    @Test
+    public final void givenCountIsKnown_whenCreatingTransactionRollsBack_thenCountIsUnchanged() {
+        instance.count(Foo.class, loader);
+        TransactionSynchronizationManager.initSynchronization();
+        instance.onApplicationEvent(new AfterEntityCreatedEvent<Foo>(this, Foo.class, new Foo(1l)));
+
+        // When
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // Then
+        assertThat(instance.count(Foo.class, loader), equalTo(10l));
+    }
+
+    @Test
+    public final void givenCountIsKnown_whenCreatingTransactionCommits_thenCountIsIncremented() {
+        instance.count(Foo.class, loader);
+        TransactionSynchronizationManager.initSynchronization();
+        instance.onApplicationEvent(new AfterEntityCreatedEvent<Foo>(this, Foo.class, new Foo(1l)));
+        assertThat(instance.count(Foo.class, loader), equalTo(10l));
+
+        // When
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Then
+        assertThat(instance.count(Foo.class, loader), equalTo(11l));
+    }
+
+    @Test
+    public final void givenCreationIsInFlight_whenCountIsLoaded_thenItIsNotKept() {
+        TransactionSynchronizationManager.initSynchronization();
+        instance.onApplicationEvent(new AfterEntityCreatedEvent<Foo>(this, Foo.class, new Foo(1l)));
+
+        // When
+        instance.count(Foo.class, loader);
+        instance.count(Foo.class, loader);
+
+        // Then
+        assertThat(loader.loads.get(), equalTo(2));
+    }
+
+    @Test
+    public final void whenAllEntitiesAreDeleted_thenCountIsLoadedAgain() {
+        instance.count(Foo.class, loader);
+
+        // When
+        instance.onApplicationEvent(new AfterEntitiesDeletedEvent<Foo>(this, Foo.class));
+        instance.count(Foo.class, loader);
+
+        // Then
+        assertThat(loader.loads.get(), equalTo(2));
+    }
+
+    @Test
+    public final void whenSpecificationIsCountedTwice_thenCountIsLoadedOnce() {
+        instance.count(Foo.class, "name=a", loader);
+
+        // When
+        instance.count(Foo.class, "name=a", loader);
+
+        // Then
+        assertThat(loader.loads.get(), equalTo(1));
+    }
+
+    @Test
+    public final void givenSpecificationCountIsCached_whenEntityIsCreated_thenSpecificationIsCountedAgain() {
+        instance.count(Foo.class, "name=a", loader);
+
+        // When
+        instance.onApplicationEvent(new AfterEntityCreatedEvent<Foo>(this, Foo.class, new Foo(1l)));
+        instance.count(Foo.class, "name=a", loader);
+
+        // Then
+        assertThat(loader.loads.get(), equalTo(2));
+    }
+
+    // util
+
+    private static void complete(final int status) {
+        for (final TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(status);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    static final class CountingLoader implements Supplier<Long> {
+        final AtomicInteger loads = new AtomicInteger();
+        private final long count;
+
+        CountingLoader(final long countToSet) {
+            count = countToSet;
+        }
+
+        @Override
+        public final Long get() {
+            loads.incrementAndGet();
+            return count;
+        }
+    }
+
+    static final class Foo implements IEntity {
+        private Long id;
+
+        Foo(final Long idToSet) {
+            id = idToSet;
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public void setId(final Long idToSet) {
+            id = idToSet;
+        }
+    }
+
+}
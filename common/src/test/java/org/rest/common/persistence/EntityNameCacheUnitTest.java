@@ -0,0 +1,196 @@
+package org.rest.common.persistence;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.rest.common.persistence.event.AfterEntityCreatedEvent;
+import org.rest.common.persistence.event.AfterEntityUpdateEvent;
+import org.rest.common.persistence.model.INameableEntity;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.collect.Maps;
+
+public final class EntityNameCacheUnitTest {
+
+    private EntityNameCache instance;
+
+    private CountingLoader loader;
+
+    @Before
+    public final void before() {
+        instance = new EntityNameCache();
+        loader = new CountingLoader();
+        loader.store(new Foo(1l, "a"));
+    }
+
+    @After
+    public final void after() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    // tests
+
+    @Test
+    public final void whenNameIsFoundTwice_thenNameIsQueriedOnce() {
+        instance.findByName(Foo.class, "a", loader);
+
+        // When
+        final Foo found = instance.findByName(Foo.class, "a", loader);
+
+        // Then
+        assertThat(found.getId(), equalTo(1l));
+        assertThat(loader.nameQueries, equalTo(1));
+    }
+
+    @Test
+    public final void whenUnknownNameIsLookedUpTwice_thenNameIsQueriedOnce() {
+        instance.findByName(Foo.class, "unknown", loader);
+
+        // When
+        final Foo found = instance.findByName(Foo.class, "unknown", loader);
+
+        // Then
+        assertThat(found, nullValue());
+        assertThat(loader.nameQueries, equalTo(1));
+    }
+
+    @Test
+    public final void givenNameIsKnown_whenEntityIsRenamed_thenOldNameIsNotFound() {
+        instance.findByName(Foo.class, "a", loader);
+
+        // When
+        final Foo renamed = loader.store(new Foo(1l, "b"));
+        instance.onApplicationEvent(new AfterEntityUpdateEvent<Foo>(this, Foo.class, renamed));
+
+        // Then
+        assertThat(instance.findByName(Foo.class, "a", loader), nullValue());
+        assertThat(instance.findByName(Foo.class, "b", loader).getId(), equalTo(1l));
+    }
+
+    @Test
+    public final void givenNameWasMissing_whenEntityIsCreatedWithTheName_thenNameIsFound() {
+        instance.findByName(Foo.class, "c", loader);
+
+        // When
+        final Foo created = loader.store(new Foo(2l, "c"));
+        instance.onApplicationEvent(new AfterEntityCreatedEvent<Foo>(this, Foo.class, created));
+
+        // Then
+        assertThat(instance.findByName(Foo.class, "c", loader).getId(), equalTo(2l));
+    }
+
+    @Test
+    public final void givenNameWasMissingWhileCreationWasInFlight_whenCreatingTransactionCommits_thenNameIsFound() {
+        TransactionSynchronizationManager.initSynchronization();
+        instance.findByName(Foo.class, "a", loader);
+        instance.onApplicationEvent(new AfterEntityCreatedEvent<Foo>(this, Foo.class, new Foo(2l, "c")));
+        // not committed yet - the other transactions do not see it
+        assertThat(instance.findByName(Foo.class, "c", loader), nullValue());
+
+        // When
+        loader.store(new Foo(2l, "c"));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Then
+        assertThat(instance.findByName(Foo.class, "c", loader).getId(), equalTo(2l));
+    }
+
+    @Test
+    public final void givenNameWasMissing_whenEntityIsCreatedBehindTheCacheAndTypeIsReset_thenNameIsFound() {
+        instance.findByName(Foo.class, "c", loader);
+        loader.store(new Foo(2l, "c"));
+
+        // When
+        instance.reset(Foo.class);
+
+        // Then
+        assertThat(instance.findByName(Foo.class, "c", loader).getId(), equalTo(2l));
+    }
+
+    @Test
+    public final void givenNameWasMissing_whenEntityIsCreatedElsewhereAndMissingNameExpires_thenNameIsFound() {
+        instance.setMissingTtlSeconds(0);
+        instance.findByName(Foo.class, "c", loader);
+
+        // When
+        loader.store(new Foo(2l, "c"));
+
+        // Then
+        assertThat(instance.findByName(Foo.class, "c", loader).getId(), equalTo(2l));
+    }
+
+    // util
+
+    private static void complete(final int status) {
+        for (final TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(status);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    static final class CountingLoader implements EntityNameCache.Loader<Foo> {
+        int nameQueries;
+        private final Map<Long, Foo> entities = Maps.newHashMap();
+
+        final Foo store(final Foo entity) {
+            entities.put(entity.getId(), entity);
+            return entity;
+        }
+
+        @Override
+        public final Foo findByName(final String name) {
+            nameQueries++;
+            for (final Foo entity : entities.values()) {
+                if (entity.getName().equals(name)) {
+                    return entity;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public final Foo findOne(final long id) {
+            return entities.get(id);
+        }
+    }
+
+    static final class Foo implements INameableEntity {
+        private Long id;
+        private String name;
+
+        Foo(final Long idToSet, final String nameToSet) {
+            id = idToSet;
+            name = nameToSet;
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public void setId(final Long idToSet) {
+            id = idToSet;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public void setName(final String nameToSet) {
+            name = nameToSet;
+        }
+    }
+
+}
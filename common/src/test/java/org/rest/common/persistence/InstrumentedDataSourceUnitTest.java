@@ -0,0 +1,91 @@
+package org.rest.common.persistence;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public final class InstrumentedDataSourceUnitTest {
+
+    private DataSource pool;
+
+    private InstrumentedDataSource instance;
+
+    @Before
+    public final void before() {
+        pool = mock(DataSource.class);
+        instance = new InstrumentedDataSource(pool);
+    }
+
+    // tests
+
+    @Test
+    public final void whenConnectionIsAcquired_thenAcquisitionIsCounted() throws SQLException {
+        when(pool.getConnection()).thenReturn(mock(Connection.class));
+
+        // When
+        instance.getConnection();
+        instance.getConnection();
+
+        // Then
+        assertThat(instance.getAcquiredConnections(), equalTo(2l));
+        assertThat(instance.getTimeouts(), equalTo(0l));
+    }
+
+    @Test
+    public final void givenPoolIsExhausted_whenConnectionIsAcquired_thenTimeoutIsCounted() throws SQLException {
+        final SQLException exhausted = new SQLException("Cannot get a connection, pool error Timeout waiting for idle object");
+        exhausted.initCause(new NoSuchElementException());
+        when(pool.getConnection()).thenThrow(exhausted);
+
+        // When
+        try {
+            instance.getConnection();
+        } catch (final SQLException sqlEx) {
+            // expected
+        }
+
+        // Then
+        assertThat(instance.getTimeouts(), equalTo(1l));
+        assertThat(instance.getAcquiredConnections(), equalTo(0l));
+    }
+
+    @Test
+    public final void givenDatabaseIsDown_whenConnectionIsAcquired_thenFailureIsCounted() throws SQLException {
+        when(pool.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        // When
+        try {
+            instance.getConnection();
+        } catch (final SQLException sqlEx) {
+            // expected
+        }
+
+        // Then
+        assertThat(instance.getFailures(), equalTo(1l));
+        assertThat(instance.getTimeouts(), equalTo(0l));
+    }
+
+    @Test
+    public final void givenMetricsWereRecorded_whenReset_thenTheyAreCleared() throws SQLException {
+        when(pool.getConnection()).thenReturn(mock(Connection.class));
+        instance.getConnection();
+
+        // When
+        instance.resetMetrics();
+
+        // Then
+        assertThat(instance.getAcquiredConnections(), equalTo(0l));
+        assertThat(instance.getMaxWaitMillis(), equalTo(0l));
+    }
+
+}
@@ -0,0 +1,71 @@
+package org.rest.common.persistence.service;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.springframework.data.domain.Sort.Direction;
+
+public class KeysetCursorUnitTest {
+
+    // tests
+
+    @Test
+    public final void givenCursor_whenEncodedAndDecoded_thenPositionIsPreserved() {
+        final KeysetCursor cursor = new KeysetCursor("name", Direction.DESC, "some|name=with separators", 42);
+
+        // When
+        final KeysetCursor decoded = KeysetCursor.decode(cursor.encode());
+
+        // Then
+        assertThat(decoded.getSortBy(), equalTo("name"));
+        assertThat(decoded.getDirection(), equalTo(Direction.DESC));
+        assertThat(decoded.getSortKey(), equalTo("some|name=with separators"));
+        assertThat(decoded.getId(), equalTo(42l));
+    }
+
+    @Test
+    public final void givenCursorWithNullSortKey_whenEncodedAndDecoded_thenSortKeyIsStillNull() {
+        final KeysetCursor cursor = new KeysetCursor("name", Direction.ASC, null, 7);
+
+        // When
+        final KeysetCursor decoded = KeysetCursor.decode(cursor.encode());
+
+        // Then
+        assertThat(decoded.getSortKey(), nullValue());
+    }
+
+    @Test
+    public final void givenCursorWithEmptySortKey_whenEncodedAndDecoded_thenSortKeyIsStillEmpty() {
+        final KeysetCursor cursor = new KeysetCursor("name", Direction.ASC, "", 7);
+
+        // When
+        final KeysetCursor decoded = KeysetCursor.decode(cursor.encode());
+
+        // Then
+        assertThat(decoded.getSortKey(), equalTo(""));
+    }
+
+    @Test
+    public final void givenCursor_whenEncoded_thenTokenIsUrlSafe() {
+        final KeysetCursor cursor = new KeysetCursor("name", Direction.ASC, "???>>>~~~", 1);
+
+        // When
+        final String token = cursor.encode();
+
+        // Then
+        assertThat(token.matches("[A-Za-z0-9_-]+"), equalTo(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void givenTokenIsNotACursor_whenDecoded_thenException() {
+        KeysetCursor.decode("bm90IGEgY3Vyc29y");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void givenTokenIsNotBase64_whenDecoded_thenException() {
+        KeysetCursor.decode("%%%");
+    }
+
+}
@@ -12,6 +12,7 @@ public abstract class Principal_ {
     public static volatile SingularAttribute<Principal, Long> id;
     public static volatile SetAttribute<Principal, Role> roles;
     public static volatile SingularAttribute<Principal, String> name;
+    public static volatile SingularAttribute<Principal, String> nameLc;
     public static volatile SingularAttribute<Principal, String> password;
     public static volatile SingularAttribute<Principal, Boolean> locked;
 
@@ -10,6 +10,7 @@ public abstract class Privilege_ {
 
     public static volatile SingularAttribute<Privilege, Long> id;
     public static volatile SingularAttribute<Privilege, String> name;
+    public static volatile SingularAttribute<Privilege, String> nameLc;
     public static volatile SingularAttribute<Privilege, String> description;
 
 }
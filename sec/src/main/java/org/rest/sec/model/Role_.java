@@ -11,6 +11,7 @@ public abstract class Role_ {
 
     public static volatile SingularAttribute<Role, Long> id;
     public static volatile SingularAttribute<Role, String> name;
+    public static volatile SingularAttribute<Role, String> nameLc;
     public static volatile SetAttribute<Role, Privilege> privileges;
 
 }
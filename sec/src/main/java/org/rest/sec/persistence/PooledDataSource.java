@@ -0,0 +1,50 @@
+package org.rest.sec.persistence;
+
+import java.sql.SQLException;
+
+import org.apache.commons.dbcp.BasicDataSource;
+import org.rest.common.persistence.InstrumentedDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * The DBCP connection pool, instrumented - see {@link InstrumentedDataSource}; the pool is closed with the context.
+ */
+@ManagedResource(objectName = "org.rest.sec:type=DataSource,name=primary", description = "JDBC connection pool")
+public class PooledDataSource extends InstrumentedDataSource implements DisposableBean {
+
+    private final BasicDataSource pool;
+
+    public PooledDataSource(final BasicDataSource poolToSet) {
+        super(poolToSet);
+        pool = poolToSet;
+    }
+
+    // metrics
+
+    @Override
+    @ManagedAttribute(description = "Connections currently in use")
+    public final int getActiveConnections() {
+        return pool.getNumActive();
+    }
+
+    @Override
+    @ManagedAttribute(description = "Connections currently idle in the pool")
+    public final int getIdleConnections() {
+        return pool.getNumIdle();
+    }
+
+    @ManagedAttribute(description = "Maximum number of connections in use at once")
+    public final int getMaxActiveConnections() {
+        return pool.getMaxActive();
+    }
+
+    // Spring
+
+    @Override
+    public final void destroy() throws SQLException {
+        pool.close();
+    }
+
+}
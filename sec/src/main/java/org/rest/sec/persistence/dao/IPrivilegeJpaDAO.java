@@ -1,10 +1,20 @@
 package org.rest.sec.persistence.dao;
 
+import javax.persistence.QueryHint;
+
 import org.rest.common.persistence.service.INameSupport;
 import org.rest.sec.model.Privilege;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.QueryHints;
 
 public interface IPrivilegeJpaDAO extends JpaRepository<Privilege, Long>, JpaSpecificationExecutor<Privilege>, INameSupport<Privilege> {
-    //
+
+    /**
+     * - note: served from the query cache (and the entity from the second level cache) until the table changes
+     */
+    @Override
+    @QueryHints({ @QueryHint(name = "org.hibernate.cacheable", value = "true") })
+    Privilege findByName(final String name);
+
 }
@@ -1,10 +1,20 @@
 package org.rest.sec.persistence.dao;
 
+import javax.persistence.QueryHint;
+
 import org.rest.common.persistence.service.INameSupport;
 import org.rest.sec.model.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.QueryHints;
 
 public interface IRoleJpaDAO extends JpaRepository<Role, Long>, JpaSpecificationExecutor<Role>, INameSupport<Role> {
-    //
+
+    /**
+     * - note: served from the query cache (and the entity from the second level cache) until the table changes
+     */
+    @Override
+    @QueryHints({ @QueryHint(name = "org.hibernate.cacheable", value = "true") })
+    Role findByName(final String name);
+
 }
@@ -2,6 +2,7 @@ package org.rest.sec.persistence.service.impl;
 
 import org.apache.commons.lang3.tuple.Triple;
 import org.rest.common.persistence.service.AbstractService;
+import org.rest.common.persistence.service.FetchPlan;
 import org.rest.common.search.ClientOperation;
 import org.rest.common.security.SpringSecurityUtil;
 import org.rest.sec.model.Principal;
@@ -18,6 +19,11 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class PrincipalServiceImpl extends AbstractService<Principal> implements IPrincipalService {
 
+    /** a list of principals carries their roles, but not the privileges of the roles */
+    private static final FetchPlan ROLES = FetchPlan.of("roles");
+    /** a single user representation and authentication both need the privileges of the roles */
+    private static final FetchPlan ROLES_AND_PRIVILEGES = FetchPlan.of("roles.privileges");
+
     @Autowired
     IPrincipalJpaDAO dao;
 
@@ -32,7 +38,7 @@ public class PrincipalServiceImpl extends AbstractService<Principal> implements
     @Override
     @Transactional(readOnly = true)
     public Principal findByName(final String name) {
-        return dao.findByName(name);
+        return getDetailFetchPlan().initialize(findByName(name, dao));
     }
 
     // other
@@ -41,7 +47,35 @@ public class PrincipalServiceImpl extends AbstractService<Principal> implements
     @Transactional(readOnly = true)
     public Principal getCurrentPrincipal() {
         final String principalName = SpringSecurityUtil.getNameOfCurrentPrincipal();
-        return getDao().findByName(principalName);
+        return getDetailFetchPlan().initialize(findByName(principalName, dao));
+    }
+
+    // template
+
+    @Override
+    protected final FetchPlan getListFetchPlan() {
+        return ROLES;
+    }
+
+    @Override
+    protected final FetchPlan getDetailFetchPlan() {
+        return ROLES_AND_PRIVILEGES;
+    }
+
+    /**
+     * - note: an update may leave out the password and the locked flag (user representations do not carry them), in which case the current values are kept
+     */
+    @Override
+    protected Principal applyUpdate(final Principal current, final Principal changes) {
+        current.setName(changes.getName());
+        current.setRoles(changes.getRoles());
+        if (changes.getPassword() != null) {
+            current.setPassword(changes.getPassword());
+        }
+        if (changes.getLocked() != null) {
+            current.setLocked(changes.getLocked());
+        }
+        return current;
     }
 
     // Spring
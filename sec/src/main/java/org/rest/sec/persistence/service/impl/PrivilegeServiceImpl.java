@@ -29,8 +29,9 @@ public class PrivilegeServiceImpl extends AbstractService<Privilege> implements
     // find
 
     @Override
+    @Transactional(readOnly = true)
     public Privilege findByName(final String name) {
-        return getDao().findByName(name);
+        return findByName(name, getDao());
     }
 
     // Spring
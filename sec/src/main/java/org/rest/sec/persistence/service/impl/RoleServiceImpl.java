@@ -2,6 +2,7 @@ package org.rest.sec.persistence.service.impl;
 
 import org.apache.commons.lang3.tuple.Triple;
 import org.rest.common.persistence.service.AbstractService;
+import org.rest.common.persistence.service.FetchPlan;
 import org.rest.common.search.ClientOperation;
 import org.rest.sec.model.Role;
 import org.rest.sec.persistence.dao.IRoleJpaDAO;
@@ -17,6 +18,9 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class RoleServiceImpl extends AbstractService<Role> implements IRoleService {
 
+    /** only a single role carries its privileges - a list of roles is read without them */
+    private static final FetchPlan PRIVILEGES = FetchPlan.of("privileges");
+
     @Autowired
     IRoleJpaDAO dao;
 
@@ -29,8 +33,9 @@ public class RoleServiceImpl extends AbstractService<Role> implements IRoleServi
     // get/find
 
     @Override
+    @Transactional(readOnly = true)
     public Role findByName(final String name) {
-        return getDao().findByName(name);
+        return getDetailFetchPlan().initialize(findByName(name, getDao()));
     }
 
     // create
@@ -49,6 +54,13 @@ public class RoleServiceImpl extends AbstractService<Role> implements IRoleServi
         return super.create(entity);
     }
 
+    // template
+
+    @Override
+    protected final FetchPlan getDetailFetchPlan() {
+        return PRIVILEGES;
+    }
+
     // Spring
 
     @Override
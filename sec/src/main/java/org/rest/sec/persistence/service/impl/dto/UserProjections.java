@@ -0,0 +1,151 @@
+package org.rest.sec.persistence.service.impl.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.rest.common.util.QueryConstants;
+import org.rest.sec.model.Principal;
+import org.rest.sec.model.Privilege;
+import org.rest.sec.model.Role;
+import org.rest.sec.model.dto.User;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Reads {@link User} representations straight from the columns they need, without loading (and managing) any <code>Principal</code>, <code>Role</code> or <code>Privilege</code> entity. <br>
+ * - one statement reads the id and name of the users; one more statement (per chunk of ids) reads their roles, together with the privileges of the roles <br>
+ * - the roles and privileges are plain, detached objects - shared between the users of the same result <br>
+ * - note: the password is never read
+ */
+@Component
+public class UserProjections {
+
+    static final int IDS_PER_STATEMENT = 500;
+    static final String VERSION = "version";
+
+    private static final String ROLES_OF_USERS = "select p.id, r.id, r.name, priv.id, priv.name, priv.description from Principal p join p.roles r left join r.privileges priv where p.id in (:ids)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public UserProjections() {
+        super();
+    }
+
+    // API
+
+    /**
+     * @param specification the filter, or null for all the users
+     * @param sort the order, or null
+     * @param maxResults the maximum number of users, or -1 for no limit
+     */
+    public List<User> findAll(final Specification<Principal> specification, final Sort sort, final int offset, final int maxResults) {
+        final CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        final Root<Principal> root = query.from(Principal.class);
+        final Path<Long> id = root.get(QueryConstants.ID);
+        final Path<String> name = root.get(QueryConstants.NAME);
+        final Path<Long> version = root.get(VERSION);
+        query.multiselect(id, name, version);
+        if (specification != null) {
+            final Predicate predicate = specification.toPredicate(root, query, builder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        if (sort != null) {
+            query.orderBy(QueryUtils.toOrders(sort, root, builder));
+        }
+
+        final TypedQuery<Tuple> typedQuery = entityManager.createQuery(query).setFirstResult(offset);
+        if (maxResults >= 0) {
+            typedQuery.setMaxResults(maxResults);
+        }
+
+        final List<User> users = Lists.newArrayList();
+        for (final Tuple row : typedQuery.getResultList()) {
+            final User user = new User(row.get(name), null, Sets.<Role> newHashSet());
+            user.setId(row.get(id));
+            user.setVersion(row.get(version));
+            users.add(user);
+        }
+        return withRoles(users);
+    }
+
+    public long count(final Specification<Principal> specification) {
+        final CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        final Root<Principal> root = query.from(Principal.class);
+        query.select(builder.count(root));
+        if (specification != null) {
+            final Predicate predicate = specification.toPredicate(root, query, builder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    // util
+
+    @SuppressWarnings("unchecked")
+    private List<User> withRoles(final List<User> users) {
+        final Map<Long, User> usersById = Maps.newHashMap();
+        for (final User user : users) {
+            usersById.put(user.getId(), user);
+        }
+        final Map<Long, Role> roles = Maps.newHashMap();
+        final Map<Long, Privilege> privileges = Maps.newHashMap();
+
+        for (final List<Long> ids : Lists.partition(Lists.newArrayList(usersById.keySet()), IDS_PER_STATEMENT)) {
+            final List<Object[]> rows = entityManager.createQuery(ROLES_OF_USERS).setParameter("ids", ids).getResultList();
+            for (final Object[] row : rows) {
+                final Role role = role(roles, (Long) row[1], (String) row[2]);
+                if (row[3] != null) {
+                    role.getPrivileges().add(privilege(privileges, (Long) row[3], (String) row[4], (String) row[5]));
+                }
+                usersById.get(row[0]).getRoles().add(role);
+            }
+        }
+        return users;
+    }
+
+    private static Role role(final Map<Long, Role> roles, final Long id, final String name) {
+        Role role = roles.get(id);
+        if (role == null) {
+            role = new Role(name, Sets.<Privilege> newHashSet());
+            role.setId(id);
+            roles.put(id, role);
+        }
+        return role;
+    }
+
+    private static Privilege privilege(final Map<Long, Privilege> privileges, final Long id, final String name, final String description) {
+        Privilege privilege = privileges.get(id);
+        if (privilege == null) {
+            privilege = new Privilege(name);
+            privilege.setId(id);
+            privilege.setDescription(description);
+            privileges.put(id, privilege);
+        }
+        return privilege;
+    }
+
+}
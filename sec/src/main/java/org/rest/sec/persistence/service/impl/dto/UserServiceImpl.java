@@ -2,25 +2,40 @@ package org.rest.sec.persistence.service.impl.dto;
 
 import java.util.List;
 
+import org.apache.commons.lang3.tuple.ImmutableTriple;
 import org.apache.commons.lang3.tuple.Triple;
+import org.rest.common.exceptions.BadRequestException;
+import org.rest.common.exceptions.ConflictException;
+import org.rest.common.persistence.service.BulkItemResult;
+import org.rest.common.persistence.service.IConsumer;
+import org.rest.common.persistence.service.KeysetPage;
+import org.rest.common.persistence.service.Slice;
 import org.rest.common.search.ClientOperation;
-import org.rest.common.web.RestPreconditions;
+import org.rest.common.util.SearchCommonUtil;
 import org.rest.sec.model.Principal;
 import org.rest.sec.model.dto.PrincipalToUserFunction;
 import org.rest.sec.model.dto.User;
 import org.rest.sec.persistence.service.IPrincipalService;
 import org.rest.sec.persistence.service.dto.IUserService;
+import org.rest.sec.util.SearchUtilSec;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.domain.Specifications;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 
+/**
+ * - note: the list and search operations read the users through {@link UserProjections} - no <code>Principal</code> is loaded for them; the single user operations (and the keyset pages and the stream) still go through the entities
+ */
 @Service
 @Transactional
 public class UserServiceImpl implements IUserService {
@@ -28,6 +43,9 @@ public class UserServiceImpl implements IUserService {
     @Autowired
     private IPrincipalService principalService;
 
+    @Autowired
+    private UserProjections projections;
+
     public UserServiceImpl() {
         super();
     }
@@ -37,14 +55,20 @@ public class UserServiceImpl implements IUserService {
     // search
 
     @Override
+    @Transactional(readOnly = true)
     public List<User> searchAll(final Triple<String, ClientOperation, String>... constraints) {
-        final List<Principal> principalsResultedFromSearch = principalService.searchAll(constraints);
-        final List<User> usersResultedFromSearch = Lists.transform(principalsResultedFromSearch, new PrincipalToUserFunction());
+        Preconditions.checkState(constraints != null);
+        Preconditions.checkState(constraints.length > 0);
+        final Specification<Principal> specifications = resolveConstraints(constraints);
+        if (specifications == null) {
+            return Lists.newArrayList();
+        }
 
-        return usersResultedFromSearch;
+        return projections.findAll(specifications, null, 0, -1);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public User searchOne(final Triple<String, ClientOperation, String>... constraints) {
         final Principal principalResultedFromSearch = principalService.searchOne(constraints);
         final User userResultedFromSearch = new PrincipalToUserFunction().apply(principalResultedFromSearch);
@@ -53,37 +77,59 @@ public class UserServiceImpl implements IUserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<User> searchPaginated(final int page, final int size, final Triple<String, ClientOperation, String>... constraints) {
-        final Page<Principal> principalsPaginated = principalService.searchPaginated(page, size, constraints);
-
-        final List<User> usersPaginated = Lists.transform(principalsPaginated.getContent(), new PrincipalToUserFunction());
+        final Specification<Principal> specifications = resolveConstraints(constraints);
+        Preconditions.checkState(specifications != null);
 
-        return new PageImpl<User>(usersPaginated, new PageRequest(page, size, null), principalsPaginated.getTotalElements());
+        final PageRequest pageRequest = new PageRequest(page, size, null);
+        final long total = countOf(specifications);
+        if (pageRequest.getOffset() >= total) {
+            return new PageImpl<User>(Lists.<User> newArrayList(), pageRequest, total);
+        }
+        return new PageImpl<User>(projections.findAll(specifications, null, pageRequest.getOffset(), size), pageRequest, total);
     }
 
+    @SuppressWarnings("unchecked")
     @Override
+    @Transactional(readOnly = true)
     public List<User> searchAll(final String queryString) {
-        final List<Principal> principals = principalService.searchAll(queryString);
-        final List<User> users = Lists.transform(principals, new PrincipalToUserFunction());
-        return users;
+        Preconditions.checkNotNull(queryString);
+        List<Triple<String, ClientOperation, String>> parsedQuery = null;
+        try {
+            parsedQuery = SearchCommonUtil.parseQueryString(queryString);
+        } catch (final IllegalStateException illState) {
+            throw new BadRequestException(illState);
+        }
+
+        return searchAll(parsedQuery.toArray(new ImmutableTriple[parsedQuery.size()]));
     }
 
+    @SuppressWarnings("unchecked")
     @Override
+    @Transactional(readOnly = true)
     public List<User> searchPaginated(final String queryString, final int page, final int size) {
-        final List<Principal> principals = principalService.searchPaginated(queryString, page, size);
-        final List<User> users = Lists.transform(principals, new PrincipalToUserFunction());
-        return users;
+        List<Triple<String, ClientOperation, String>> parsedQuery = null;
+        try {
+            parsedQuery = SearchCommonUtil.parseQueryString(queryString);
+        } catch (final IllegalStateException illState) {
+            throw new ConflictException(illState);
+        }
+
+        return searchPaginated(page, size, parsedQuery.toArray(new ImmutableTriple[parsedQuery.size()])).getContent();
     }
 
     // find - one
 
     @Override
+    @Transactional(readOnly = true)
     public User findByName(final String name) {
         final Principal principal = principalService.findByName(name);
         return new User(principal);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public User findOne(final long id) {
         final Principal principal = principalService.findOne(id);
         if (principal == null) {
@@ -95,42 +141,76 @@ public class UserServiceImpl implements IUserService {
     // find - many
 
     @Override
+    @Transactional(readOnly = true)
     public List<User> findAll() {
-        final List<Principal> allPrincipalEntities = principalService.findAll();
-        final List<User> allUsers = Lists.transform(allPrincipalEntities, new PrincipalToUserFunction());
+        return projections.findAll(null, null, 0, -1);
+    }
 
-        return Lists.newArrayList(allUsers);
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(final IConsumer<User> consumer) {
+        principalService.streamAll(new IConsumer<Principal>() {
+            @Override
+            public final void accept(final Principal principal) {
+                consumer.accept(new User(principal));
+            }
+        });
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<User> findAllSorted(final String sortBy, final String sortOrder) {
-        final List<Principal> allPrincipalEntitiesSortedAndOrdered = principalService.findAllSorted(sortBy, sortOrder);
-        final List<User> allUsers = Lists.transform(allPrincipalEntitiesSortedAndOrdered, new PrincipalToUserFunction());
-
-        return allUsers;
+        return projections.findAll(null, constructSort(sortBy, sortOrder), 0, -1);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<User> findAllPaginated(final int page, final int size) {
-        final List<Principal> principalsPaginated = principalService.findAllPaginated(page, size);
-        return Lists.transform(principalsPaginated, new PrincipalToUserFunction());
+        final PageRequest pageRequest = new PageRequest(page, size, null);
+        return projections.findAll(null, null, pageRequest.getOffset(), size);
     }
 
+    /**
+     * - note: the total is the count of the principals, so it comes from the count cache, when there is one
+     */
     @Override
     @Transactional(readOnly = true)
     public Page<User> findAllPaginatedAndSortedRaw(final int page, final int size, final String sortBy, final String sortOrder) {
-        final Page<Principal> principalsPaginatedAndSorted = principalService.findAllPaginatedAndSortedRaw(page, size, sortBy, sortOrder);
-
-        final List<User> usersPaginatedAndSorted = Lists.transform(principalsPaginatedAndSorted.getContent(), new PrincipalToUserFunction());
-
-        return new PageImpl<User>(usersPaginatedAndSorted, new PageRequest(page, size, constructSort(sortBy, sortOrder)), principalsPaginatedAndSorted.getTotalElements());
+        final PageRequest pageRequest = new PageRequest(page, size, constructSort(sortBy, sortOrder));
+        final long total = principalService.count();
+        if (pageRequest.getOffset() >= total) {
+            return new PageImpl<User>(Lists.<User> newArrayList(), pageRequest, total);
+        }
+        return new PageImpl<User>(projections.findAll(null, pageRequest.getSort(), pageRequest.getOffset(), size), pageRequest, total);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<User> findAllPaginatedAndSorted(final int page, final int size, final String sortBy, final String sortOrder) {
         return findAllPaginatedAndSortedRaw(page, size, sortBy, sortOrder).getContent();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<User> findAllSliced(final int page, final int size, final String sortBy, final String sortOrder) {
+        final PageRequest pageRequest = new PageRequest(page, size, constructSort(sortBy, sortOrder));
+        final List<User> content = projections.findAll(null, pageRequest.getSort(), pageRequest.getOffset(), size + 1);
+        if (content.size() <= size) {
+            return new Slice<User>(content, page, size, false);
+        }
+        return new Slice<User>(Lists.newArrayList(content.subList(0, size)), page, size, true);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<User> findAllAfter(final String cursor, final int size, final String sortBy, final String sortOrder) {
+        final KeysetPage<Principal> principalsPage = principalService.findAllAfter(cursor, size, sortBy, sortOrder);
+
+        final List<User> usersPage = Lists.transform(principalsPage.getContent(), new PrincipalToUserFunction());
+
+        return new KeysetPage<User>(Lists.newArrayList(usersPage), principalsPage.getNext());
+    }
+
     // create
 
     @Override
@@ -141,16 +221,45 @@ public class UserServiceImpl implements IUserService {
         return entity;
     }
 
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BulkItemResult> createAll(final List<User> entities) {
+        final List<Principal> newPrincipalEntities = Lists.newArrayListWithCapacity(entities.size());
+        for (final User entity : entities) {
+            final Principal newPrincipalEntity = new Principal(entity.getName(), entity.getPassword(), entity.getRoles());
+            newPrincipalEntity.setId(entity.getId());
+            newPrincipalEntities.add(newPrincipalEntity);
+        }
+        return principalService.createAll(newPrincipalEntities);
+    }
+
     // update
 
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BulkItemResult> updateAll(final List<User> entities) {
+        final List<Principal> principalChanges = Lists.newArrayListWithCapacity(entities.size());
+        for (final User entity : entities) {
+            final Principal principalChange = new Principal(entity.getName(), null, entity.getRoles());
+            principalChange.setId(entity.getId());
+            principalChange.setVersion(entity.getVersion());
+            principalChanges.add(principalChange);
+        }
+        return principalService.updateAll(principalChanges);
+    }
+
+    /**
+     * - note: the principal service applies the changes to the current principal (keeping its password), conditional on the version of the user, when it has one
+     */
     @Override
     public void update(final User entity) {
-        final Principal principalToUpdate = RestPreconditions.checkNotNull(principalService.findOne(entity.getId()));
+        Preconditions.checkNotNull(entity);
 
-        principalToUpdate.setName(entity.getName());
-        principalToUpdate.setRoles(entity.getRoles());
+        final Principal principalChanges = new Principal(entity.getName(), null, entity.getRoles());
+        principalChanges.setId(entity.getId());
+        principalChanges.setVersion(entity.getVersion());
 
-        principalService.update(principalToUpdate);
+        principalService.update(principalChanges);
     }
 
     // delete
@@ -165,11 +274,33 @@ public class UserServiceImpl implements IUserService {
         principalService.deleteAll();
     }
 
+    @Override
+    public boolean deleteById(final long id) {
+        return principalService.deleteById(id);
+    }
+
+    @Override
+    public int deleteByIds(final List<Long> ids) {
+        return principalService.deleteByIds(ids);
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        principalService.deleteAllInBatch();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BulkItemResult> deleteAll(final List<Long> ids) {
+        return principalService.deleteAll(ids);
+    }
+
     // count
 
     @Override
+    @Transactional(readOnly = true)
     public long count() {
-        throw new UnsupportedOperationException();
+        return principalService.count();
     }
 
     // other
@@ -182,6 +313,29 @@ public class UserServiceImpl implements IUserService {
 
     // util
 
+    @SuppressWarnings("null")
+    /**
+     * - note: only the total of all principals is cached (by the count service, behind {@link IPrincipalService#count()}); the total of a filtered search depends on its constraints and is always counted
+     */
+    private long countOf(final Specification<Principal> specification) {
+        if (specification == null) {
+            return principalService.count();
+        }
+        return projections.count(specification);
+    }
+
+    private Specification<Principal> resolveConstraints(final Triple<String, ClientOperation, String>... constraints) {
+        final Specification<Principal> firstSpec = SearchUtilSec.resolveConstraint(constraints[0], Principal.class);
+        if (firstSpec == null) {
+            return null;
+        }
+        Specifications<Principal> specifications = Specifications.where(firstSpec);
+        for (int i = 1; i < constraints.length; i++) {
+            specifications = specifications.and(SearchUtilSec.resolveConstraint(constraints[i], Principal.class));
+        }
+        return specifications;
+    }
+
     final Sort constructSort(final String sortBy, final String sortOrder) {
         Sort sortInfo = null;
         if (sortBy != null) {
@@ -1,9 +1,14 @@
 package org.rest.sec.spring;
 
+import java.util.List;
 import java.util.Properties;
 
 import javax.sql.DataSource;
 
+import org.apache.commons.dbcp.BasicDataSource;
+import org.rest.common.persistence.ReadOnlyHibernateJpaDialect;
+import org.rest.common.persistence.ReadWriteRoutingDataSource;
+import org.rest.sec.persistence.PooledDataSource;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
@@ -11,17 +16,22 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.ImportResource;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jmx.export.MBeanExporter;
+import org.springframework.jmx.export.annotation.AnnotationMBeanExporter;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+
 @Configuration
 @EnableTransactionManagement
 @ImportResource("classpath*:*secPersistenceConfig.xml")
-@ComponentScan({ "org.rest.sec.persistence" })
+@ComponentScan({ "org.rest.common.persistence", "org.rest.sec.persistence" })
 @PropertySource({ "classpath:persistence-${persistenceTarget:h2}.properties" })
 public class PersistenceJPAConfig {
 
@@ -29,9 +39,35 @@ public class PersistenceJPAConfig {
     private String driverClassName;
     @Value("${jdbc.url}")
     private String url;
+    @Value("${jdbc.replica.urls:}")
+    private String replicaUrls;
     @Value("${jpa.generateDdl}")
     boolean jpaGenerateDdl;
 
+    // connection pool
+    @Value("${jdbc.pool.initialSize:5}")
+    int poolInitialSize;
+    @Value("${jdbc.pool.maxActive:20}")
+    int poolMaxActive;
+    @Value("${jdbc.pool.maxIdle:10}")
+    int poolMaxIdle;
+    @Value("${jdbc.pool.minIdle:2}")
+    int poolMinIdle;
+    @Value("${jdbc.pool.maxWait:5000}")
+    long poolMaxWait;
+    @Value("${jdbc.pool.validationQuery:SELECT 1}")
+    String poolValidationQuery;
+    @Value("${jdbc.pool.testOnBorrow:false}")
+    boolean poolTestOnBorrow;
+    @Value("${jdbc.pool.testWhileIdle:true}")
+    boolean poolTestWhileIdle;
+    @Value("${jdbc.pool.timeBetweenEvictionRunsMillis:30000}")
+    long poolTimeBetweenEvictionRunsMillis;
+    @Value("${jdbc.pool.poolPreparedStatements:true}")
+    boolean poolPreparedStatements;
+    @Value("${jdbc.pool.maxOpenPreparedStatements:100}")
+    int poolMaxOpenPreparedStatements;
+
     // Hibernate specific
     @Value("${hibernate.dialect}")
     String hibernateDialect;
@@ -39,6 +75,18 @@ public class PersistenceJPAConfig {
     boolean hibernateShowSql;
     @Value("${hibernate.hbm2ddl.auto}")
     String hibernateHbm2ddlAuto;
+    @Value("${hibernate.cache.use_second_level_cache:true}")
+    boolean hibernateSecondLevelCache;
+    @Value("${hibernate.cache.use_query_cache:true}")
+    boolean hibernateQueryCache;
+    @Value("${hibernate.generate_statistics:false}")
+    boolean hibernateGenerateStatistics;
+    @Value("${hibernate.jdbc.batch_size:50}")
+    int hibernateJdbcBatchSize;
+    @Value("${hibernate.order_inserts:true}")
+    boolean hibernateOrderInserts;
+    @Value("${hibernate.order_updates:true}")
+    boolean hibernateOrderUpdates;
 
     public PersistenceJPAConfig() {
         super();
@@ -46,6 +94,9 @@ public class PersistenceJPAConfig {
 
     // beans
 
+    /**
+     * - note: read-only transactions load their entities read-only and are never flushed - see {@link ReadOnlyHibernateJpaDialect}
+     */
     @Bean
     public LocalContainerEntityManagerFactoryBean entityManagerFactoryBean() {
         final LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
@@ -61,20 +112,36 @@ public class PersistenceJPAConfig {
             }
         };
         factoryBean.setJpaVendorAdapter(vendorAdapter);
+        factoryBean.setJpaDialect(new ReadOnlyHibernateJpaDialect());
 
         factoryBean.setJpaProperties(additionlProperties());
 
         return factoryBean;
     }
 
+    /**
+     * - note: the actual connection is only taken on the first statement, once the transaction (and its read-only flag) is known - see {@link ReadWriteRoutingDataSource}
+     */
     @Bean
     public DataSource restDataSource() {
-        final DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName(driverClassName);
-        dataSource.setUrl(url);
-        dataSource.setUsername("restUser");
-        dataSource.setPassword("restmy5ql");
-        return dataSource;
+        return new LazyConnectionDataSourceProxy(routingDataSource());
+    }
+
+    /**
+     * - note: read-only transactions go to the replicas of <code>jdbc.replica.urls</code> (comma separated), when there are any
+     */
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource() {
+        final List<PooledDataSource> replicas = Lists.newArrayList();
+        for (final String replicaUrl : Splitter.on(',').trimResults().omitEmptyStrings().split(replicaUrls)) {
+            replicas.add(pooledDataSource(replicaUrl));
+        }
+        return new ReadWriteRoutingDataSource(primaryDataSource(), replicas);
+    }
+
+    @Bean
+    public PooledDataSource primaryDataSource() {
+        return pooledDataSource(url);
     }
 
     @Bean
@@ -85,17 +152,66 @@ public class PersistenceJPAConfig {
         return transactionManager;
     }
 
+    /**
+     * - note: several contexts (e.g. the tests) may export the same beans, so a registration replaces the existing one
+     */
+    @Bean
+    public AnnotationMBeanExporter mbeanExporter() {
+        final AnnotationMBeanExporter exporter = new AnnotationMBeanExporter();
+        exporter.setRegistrationBehavior(MBeanExporter.REGISTRATION_REPLACE_EXISTING);
+        return exporter;
+    }
+
     @Bean
     public PersistenceExceptionTranslationPostProcessor persistenceExceptionTranslationPostProcessor() {
         return new PersistenceExceptionTranslationPostProcessor();
     }
 
+    /**
+     * - note: the connections are pooled (with their prepared statements) and validated while idle; the pool is instrumented
+     */
+    final PooledDataSource pooledDataSource(final String jdbcUrl) {
+        final BasicDataSource pool = new BasicDataSource();
+        pool.setDriverClassName(driverClassName);
+        pool.setUrl(jdbcUrl);
+        pool.setUsername("restUser");
+        pool.setPassword("restmy5ql");
+
+        pool.setInitialSize(poolInitialSize);
+        pool.setMaxActive(poolMaxActive);
+        pool.setMaxIdle(poolMaxIdle);
+        pool.setMinIdle(poolMinIdle);
+        pool.setMaxWait(poolMaxWait);
+
+        pool.setValidationQuery(poolValidationQuery);
+        pool.setTestOnBorrow(poolTestOnBorrow);
+        pool.setTestWhileIdle(poolTestWhileIdle);
+        pool.setTimeBetweenEvictionRunsMillis(poolTimeBetweenEvictionRunsMillis);
+
+        pool.setPoolPreparedStatements(poolPreparedStatements);
+        pool.setMaxOpenPreparedStatements(poolMaxOpenPreparedStatements);
+
+        return new PooledDataSource(pool);
+    }
+
     //
     final Properties additionlProperties() {
         return new Properties() {
             {
                 // use this to inject additional properties in the EntityManager
                 setProperty("hibernate.hbm2ddl.auto", hibernateHbm2ddlAuto);
+
+                // second level cache - the regions (Role, Privilege and their collections) are configured in ehcache.xml
+                setProperty("hibernate.cache.use_second_level_cache", Boolean.toString(hibernateSecondLevelCache));
+                setProperty("hibernate.cache.use_query_cache", Boolean.toString(hibernateQueryCache));
+                setProperty("hibernate.cache.region.factory_class", "org.hibernate.cache.ehcache.SingletonEhCacheRegionFactory");
+                setProperty("net.sf.ehcache.configurationResourceName", "/ehcache.xml");
+                setProperty("hibernate.generate_statistics", Boolean.toString(hibernateGenerateStatistics));
+
+                // JDBC batching - used by the bulk operations, which flush a whole chunk at once
+                setProperty("hibernate.jdbc.batch_size", Integer.toString(hibernateJdbcBatchSize));
+                setProperty("hibernate.order_inserts", Boolean.toString(hibernateOrderInserts));
+                setProperty("hibernate.order_updates", Boolean.toString(hibernateOrderUpdates));
             }
         };
     }
@@ -2,10 +2,17 @@ package org.rest.sec.spring;
 
 import java.util.List;
 
+import org.hibernate.Hibernate;
+import org.rest.common.caching.CachePolicyInterceptor;
+import org.rest.common.caching.VersionETagInterceptor;
+import org.rest.common.web.ReadYourWritesInterceptor;
+import org.rest.common.web.util.UnloadedAssociationsModule;
 import org.rest.sec.model.Principal;
 import org.rest.sec.model.Privilege;
 import org.rest.sec.model.Role;
 import org.rest.sec.model.dto.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.HttpMessageConverter;
@@ -15,24 +22,50 @@ import org.springframework.http.converter.xml.MarshallingHttpMessageConverter;
 import org.springframework.oxm.xstream.XStreamMarshaller;
 import org.springframework.util.ClassUtils;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.converters.reflection.ReflectionConverter;
+import com.thoughtworks.xstream.converters.reflection.ReflectionProvider;
+import com.thoughtworks.xstream.converters.reflection.ReflectionProviderWrapper;
+
 @Configuration
-@ComponentScan({ "org.rest.common.web", "org.rest.sec.web" })
+@ComponentScan({ "org.rest.common.web", "org.rest.common.caching", "org.rest.sec.web" })
 @EnableWebMvc
 public class WebConfig extends WebMvcConfigurerAdapter {
 
+    @Autowired
+    private CachePolicyInterceptor cachePolicyInterceptor;
+    @Autowired
+    private VersionETagInterceptor versionETagInterceptor;
+    @Autowired
+    private ReadYourWritesInterceptor readYourWritesInterceptor;
+
     public WebConfig() {
         super();
     }
 
     // beans
 
+    /**
+     * The JSON mapper of the message converter - also used by the controllers that write their JSON themselves (streaming), so that both write the same JSON
+     */
+    @Bean
+    public ObjectMapper objectMapper() {
+        final ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new UnloadedAssociationsModule());
+        return objectMapper;
+    }
+
     public XStreamMarshaller xstreamMarshaller() {
         final XStreamMarshaller xStreamMarshaller = new XStreamMarshaller();
         xStreamMarshaller.setAutodetectAnnotations(true);
         xStreamMarshaller.setAnnotatedClasses(new Class[] { Principal.class, User.class, Role.class, Privilege.class });
-        xStreamMarshaller.getXStream().addDefaultImplementation(java.sql.Timestamp.class, java.util.Date.class);
+        final XStream xstream = xStreamMarshaller.getXStream();
+        xstream.addDefaultImplementation(java.sql.Timestamp.class, java.util.Date.class);
+        xstream.registerConverter(new ReflectionConverter(xstream.getMapper(), new UnloadedAssociationsSkippingProvider(xstream.getReflectionProvider())), XStream.PRIORITY_VERY_LOW);
 
         return xStreamMarshaller;
     }
@@ -54,7 +87,9 @@ public class WebConfig extends WebMvcConfigurerAdapter {
 
         final ClassLoader classLoader = getClass().getClassLoader();
         if (ClassUtils.isPresent("com.fasterxml.jackson.databind.ObjectMapper", classLoader)) {
-            messageConverters.add(new MappingJackson2HttpMessageConverter());
+            final MappingJackson2HttpMessageConverter jacksonConverter = new MappingJackson2HttpMessageConverter();
+            jacksonConverter.setObjectMapper(objectMapper());
+            messageConverters.add(jacksonConverter);
         } else if (ClassUtils.isPresent("org.codehaus.jackson.map.ObjectMapper", classLoader)) {
             messageConverters.add(new MappingJacksonHttpMessageConverter());
         }
@@ -62,6 +97,35 @@ public class WebConfig extends WebMvcConfigurerAdapter {
         super.configureMessageConverters(messageConverters);
     }
 
+    @Override
+    public void addInterceptors(final InterceptorRegistry registry) {
+        registry.addInterceptor(cachePolicyInterceptor); // first, so that the 304s of the version interceptor get the policy on completion
+        registry.addInterceptor(versionETagInterceptor);
+        registry.addInterceptor(readYourWritesInterceptor);
+    }
+
+    /**
+     * Leaves out of the XML the associations that the fetch plan of the operation left unloaded (see {@link UnloadedAssociationsModule} for JSON)
+     */
+    static final class UnloadedAssociationsSkippingProvider extends ReflectionProviderWrapper {
+
+        UnloadedAssociationsSkippingProvider(final ReflectionProvider wrapped) {
+            super(wrapped);
+        }
+
+        @Override
+        public final void visitSerializableFields(final Object object, final Visitor visitor) {
+            super.visitSerializableFields(object, new Visitor() {
+                @SuppressWarnings("rawtypes")
+                @Override
+                public final void visit(final String name, final Class type, final Class definedIn, final Object value) {
+                    visitor.visit(name, type, definedIn, Hibernate.isInitialized(value) ? value : null);
+                }
+            });
+        }
+
+    }
+
     // https://github.com/joshlong/spring-travel/blob/master/spring-travel/server/src/main/java/org/springframework/samples/travel/config/web/WebConfiguration.java
 
 }
@@ -8,6 +8,7 @@ import javax.persistence.metamodel.SingularAttribute;
 
 import org.rest.common.persistence.model.IEntity;
 import org.rest.common.search.ClientOperation;
+import org.rest.common.util.NameUtil;
 import org.rest.common.util.QueryConstants;
 import org.rest.sec.model.Principal;
 import org.rest.sec.model.Principal_;
@@ -150,7 +151,7 @@ public final class QuerySpecificationSec {
     }
 
     private static Specification<Principal> userByNameEq(final String name, final boolean negated) {
-        return QuerySpecificationSec.<Principal> entityByKeyEq(name, negated, Principal_.name);
+        return QuerySpecificationSec.<Principal> entityByNormalizedKeyEq(name, negated, Principal_.nameLc);
     }
 
     private static Specification<Principal> userByNameContains(final String name, final boolean negated) {
@@ -158,7 +159,7 @@ public final class QuerySpecificationSec {
     }
 
     private static Specification<Principal> userByNameStartsWith(final String name, final boolean negated) {
-        return QuerySpecificationSec.<Principal> entityByKeyStartsWith(name, negated, Principal_.name);
+        return QuerySpecificationSec.<Principal> entityByNormalizedKeyStartsWith(name, negated, Principal_.nameLc);
     }
 
     private static Specification<Principal> userByNameEndsWith(final String name, final boolean negated) {
@@ -180,7 +181,7 @@ public final class QuerySpecificationSec {
     }
 
     private static Specification<Role> roleByNameEq(final String name, final boolean negated) {
-        return QuerySpecificationSec.<Role> entityByKeyEq(name, negated, Role_.name);
+        return QuerySpecificationSec.<Role> entityByNormalizedKeyEq(name, negated, Role_.nameLc);
     }
 
     private static Specification<Role> roleByNameContains(final String name, final boolean negated) {
@@ -192,7 +193,7 @@ public final class QuerySpecificationSec {
     }
 
     private static Specification<Role> roleByNameStartsWith(final String name, final boolean negated) {
-        return QuerySpecificationSec.<Role> entityByKeyStartsWith(name, negated, Role_.name);
+        return QuerySpecificationSec.<Role> entityByNormalizedKeyStartsWith(name, negated, Role_.nameLc);
     }
 
     // privilege
@@ -210,7 +211,7 @@ public final class QuerySpecificationSec {
     }
 
     private static Specification<Privilege> privilegeByNameEq(final String name, final boolean negated) {
-        return QuerySpecificationSec.<Privilege> entityByKeyEq(name, negated, Privilege_.name);
+        return QuerySpecificationSec.<Privilege> entityByNormalizedKeyEq(name, negated, Privilege_.nameLc);
     }
 
     private static Specification<Privilege> privilegeByNameContains(final String name, final boolean negated) {
@@ -218,7 +219,7 @@ public final class QuerySpecificationSec {
     }
 
     private static Specification<Privilege> privilegeByNameStartsWith(final String name, final boolean negated) {
-        return QuerySpecificationSec.<Privilege> entityByKeyStartsWith(name, negated, Privilege_.name);
+        return QuerySpecificationSec.<Privilege> entityByNormalizedKeyStartsWith(name, negated, Privilege_.nameLc);
     }
 
     private static Specification<Privilege> privilegeByNameEndsWith(final String name, final boolean negated) {
@@ -291,4 +292,34 @@ public final class QuerySpecificationSec {
         };
     }
 
+    /**
+     * - note: the field holds the normalized form of the key (see {@link NameUtil}), so it is compared as is, and its index can be used
+     */
+    private static <T extends IEntity> Specification<T> entityByNormalizedKeyStartsWith(final String value, final boolean negated, final SingularAttribute<T, String> normalizedMetaField) {
+        return new Specification<T>() {
+            @Override
+            public final Predicate toPredicate(final Root<T> root, final CriteriaQuery<?> query, final CriteriaBuilder builder) {
+                if (negated) {
+                    return builder.notLike(root.get(normalizedMetaField), NameUtil.normalize(value) + QueryConstants.ANY_SERVER);
+                }
+                return builder.like(root.get(normalizedMetaField), NameUtil.normalize(value) + QueryConstants.ANY_SERVER);
+            }
+        };
+    }
+
+    /**
+     * - note: the field holds the normalized form of the key (see {@link NameUtil}), so it is compared as is, and its index can be used
+     */
+    private static <T extends IEntity> Specification<T> entityByNormalizedKeyEq(final String value, final boolean negated, final SingularAttribute<T, String> normalizedMetaField) {
+        return new Specification<T>() {
+            @Override
+            public final Predicate toPredicate(final Root<T> root, final CriteriaQuery<?> query, final CriteriaBuilder builder) {
+                if (negated) {
+                    return builder.notEqual(root.get(normalizedMetaField), NameUtil.normalize(value));
+                }
+                return builder.equal(root.get(normalizedMetaField), NameUtil.normalize(value));
+            }
+        };
+    }
+
 }
@@ -1,15 +1,21 @@
 package org.rest.sec.web.controller;
 
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.rest.common.caching.CachePolicy;
+import org.rest.common.caching.VersionedResource;
 import org.rest.common.exceptions.ConflictException;
+import org.rest.common.persistence.service.BulkItemResult;
 import org.rest.common.util.QueryConstants;
 import org.rest.common.web.RestPreconditions;
 import org.rest.common.web.controller.AbstractController;
 import org.rest.common.web.controller.ISortingController;
+import org.rest.sec.model.Privilege;
 import org.rest.sec.model.Role;
 import org.rest.sec.persistence.service.IRoleService;
 import org.rest.sec.util.SecurityConstants.Privileges;
@@ -21,6 +27,7 @@ import org.springframework.security.access.annotation.Secured;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -28,7 +35,11 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.google.common.net.HttpHeaders;
+
 @Controller
+@VersionedResource(value = Role.class, dependsOn = Privilege.class)
+@CachePolicy(maxAge = 60, staleWhileRevalidate = 300)
 @RequestMapping(value = UriMappingConstants.ROLES)
 public class RoleController extends AbstractController<Role> implements ISortingController<Role> {
 
@@ -61,19 +72,34 @@ public class RoleController extends AbstractController<Role> implements ISorting
     @RequestMapping(params = { QueryConstants.PAGE, QueryConstants.SIZE, QueryConstants.SORT_BY }, method = RequestMethod.GET)
     @ResponseBody
     public List<Role> findAllPaginatedAndSorted(@RequestParam(value = QueryConstants.PAGE) final int page, @RequestParam(value = QueryConstants.SIZE) final int size,
-            @RequestParam(value = QueryConstants.SORT_BY) final String sortBy, @RequestParam(value = QueryConstants.SORT_ORDER) final String sortOrder, final UriComponentsBuilder uriBuilder,
-            final HttpServletResponse response) {
+            @RequestParam(value = QueryConstants.SORT_BY) final String sortBy, @RequestParam(value = QueryConstants.SORT_ORDER) final String sortOrder,
+            @RequestParam(value = QueryConstants.SLICE, required = false, defaultValue = "false") final boolean slice, final UriComponentsBuilder uriBuilder, final HttpServletResponse response) {
+        if (slice) {
+            return findSliceInternal(page, size, sortBy, sortOrder, uriBuilder, response);
+        }
         return findPaginatedAndSortedInternal(page, size, sortBy, sortOrder, uriBuilder, response);
     }
 
     @Override
     @RequestMapping(params = { QueryConstants.PAGE, QueryConstants.SIZE }, method = RequestMethod.GET)
     @ResponseBody
-    public List<Role> findAllPaginated(@RequestParam(value = QueryConstants.PAGE) final int page, @RequestParam(value = QueryConstants.SIZE) final int size, final UriComponentsBuilder uriBuilder,
-            final HttpServletResponse response) {
+    public List<Role> findAllPaginated(@RequestParam(value = QueryConstants.PAGE) final int page, @RequestParam(value = QueryConstants.SIZE) final int size,
+            @RequestParam(value = QueryConstants.SLICE, required = false, defaultValue = "false") final boolean slice, final UriComponentsBuilder uriBuilder, final HttpServletResponse response) {
+        if (slice) {
+            return findSliceInternal(page, size, null, null, uriBuilder, response);
+        }
         return findPaginatedAndSortedInternal(page, size, null, null, uriBuilder, response);
     }
 
+    @Override
+    @RequestMapping(params = { QueryConstants.AFTER, QueryConstants.SIZE }, method = RequestMethod.GET)
+    @ResponseBody
+    public List<Role> findAllAfter(@RequestParam(value = QueryConstants.AFTER) final String after, @RequestParam(value = QueryConstants.SIZE) final int size,
+            @RequestParam(value = QueryConstants.SORT_BY, required = false) final String sortBy, @RequestParam(value = QueryConstants.SORT_ORDER, required = false) final String sortOrder, final UriComponentsBuilder uriBuilder,
+            final HttpServletResponse response) {
+        return findAllAfterInternal(after, size, sortBy, sortOrder, uriBuilder, response);
+    }
+
     @Override
     @RequestMapping(params = { QueryConstants.SORT_BY }, method = RequestMethod.GET)
     @ResponseBody
@@ -88,6 +114,11 @@ public class RoleController extends AbstractController<Role> implements ISorting
         return findAllInternal(request, uriBuilder, response);
     }
 
+    @RequestMapping(value = "/stream", method = RequestMethod.GET)
+    public void streamAll(final HttpServletResponse response) throws IOException {
+        streamAllInternal(response);
+    }
+
     // find - one
 
     @RequestMapping(value = "/{id}", method = RequestMethod.GET)
@@ -120,13 +151,27 @@ public class RoleController extends AbstractController<Role> implements ISorting
         createInternal(resource, uriBuilder, response);
     }
 
+    @RequestMapping(value = "/bulk", method = RequestMethod.POST)
+    @ResponseBody
+    @Secured(Privileges.CAN_ROLE_WRITE)
+    public List<BulkItemResult> createAll(@RequestBody final Role[] resources) {
+        return createAllInternal(Arrays.asList(resources));
+    }
+
     // update
 
     @RequestMapping(method = RequestMethod.PUT)
     @ResponseStatus(HttpStatus.OK)
     @Secured(Privileges.CAN_ROLE_WRITE)
-    public void update(@RequestBody final Role resource) {
-        updateInternal(resource);
+    public void update(@RequestBody final Role resource, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch) {
+        updateInternal(resource, ifMatch);
+    }
+
+    @RequestMapping(value = "/bulk", method = RequestMethod.PUT)
+    @ResponseBody
+    @Secured(Privileges.CAN_ROLE_WRITE)
+    public List<BulkItemResult> updateAll(@RequestBody final Role[] resources) {
+        return updateAllInternal(Arrays.asList(resources));
     }
 
     // delete
@@ -138,6 +183,16 @@ public class RoleController extends AbstractController<Role> implements ISorting
         deleteByIdInternal(id);
     }
 
+    /**
+     * - note: the ids travel in the body, as a JSON array
+     */
+    @RequestMapping(value = "/bulk", method = RequestMethod.DELETE)
+    @ResponseBody
+    @Secured(Privileges.CAN_ROLE_WRITE)
+    public List<BulkItemResult> deleteAll(@RequestBody final Long[] ids) {
+        return deleteAllInternal(Arrays.asList(ids));
+    }
+
     // count
 
     /**
@@ -0,0 +1,17 @@
+-- case insensitive names for MySQL (persistence-mysql.properties, persistence-production.properties)
+-- Principal, Role and Privilege keep their name normalized (lower case) in an indexed NAME_LC column, which the name lookups and searches match on; run this script once on a schema that predates it, before starting the application
+-- - with hibernate.hbm2ddl.auto=validate, the application does not start without the column; with update, Hibernate adds it empty, and the existing rows are no longer found by name until it is filled in
+-- - the rows are normalized the way the application does it (NameUtil.normalize - lower case, locale independent)
+-- - note: if update has already added the column (and its index), only run the UPDATE statements
+
+alter table Principal add NAME_LC varchar(255);
+update Principal set NAME_LC = lower(name);
+create index PRINCIPAL_NAME_LC_IDX on Principal (NAME_LC);
+
+alter table Role add NAME_LC varchar(255);
+update Role set NAME_LC = lower(name);
+create index ROLE_NAME_LC_IDX on Role (NAME_LC);
+
+alter table Privilege add NAME_LC varchar(255);
+update Privilege set NAME_LC = lower(name);
+create index PRIV_NAME_LC_IDX on Privilege (NAME_LC);
@@ -0,0 +1,14 @@
+-- id sequences for MySQL (persistence-mysql.properties)
+-- MySQL has no sequences, so the PooledIdGenerator of each entity emulates its sequence with a single row table; with hibernate.hbm2ddl.auto=validate nothing creates these tables - run this script once, after the schema
+-- - next_val is the low end of the next block of ids: a node reserves a block by reading it and adding persistence.id.allocationSize to it (pooled-lo, default 50), so the first block is 1..50, the next one 51..100, and so on
+-- - the value does not depend on the block size - it can change between restarts without touching these tables
+-- - on a schema that already holds data, the first block starts past the highest existing id
+
+create table PRINCIPAL_SEQ ( next_val bigint not null ) engine=InnoDB;
+insert into PRINCIPAL_SEQ ( next_val ) select coalesce(max(PRINCIPAL_ID), 0) + 1 from Principal;
+
+create table ROLE_SEQ ( next_val bigint not null ) engine=InnoDB;
+insert into ROLE_SEQ ( next_val ) select coalesce(max(ROLE_ID), 0) + 1 from Role;
+
+create table PRIV_SEQ ( next_val bigint not null ) engine=InnoDB;
+insert into PRIV_SEQ ( next_val ) select coalesce(max(PRIV_ID), 0) + 1 from Privilege;
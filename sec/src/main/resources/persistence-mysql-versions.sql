@@ -0,0 +1,11 @@
+-- optimistic locking for MySQL (persistence-mysql.properties, persistence-production.properties)
+-- Principal, Role and Privilege carry a @Version column; run this script once on a schema that predates it, before starting the application
+-- - with hibernate.hbm2ddl.auto=validate, the application does not start without the column; with update, Hibernate adds it as nullable and leaves the existing rows without a version - which it can neither increment nor merge
+-- - the existing rows start at version 0, as new rows do
+-- - note: if update has already added the column, replace each ADD with: update <table> set version = 0 where version is null; alter table <table> modify version bigint not null default 0;
+
+alter table Principal add version bigint not null default 0;
+
+alter table Role add version bigint not null default 0;
+
+alter table Privilege add version bigint not null default 0;
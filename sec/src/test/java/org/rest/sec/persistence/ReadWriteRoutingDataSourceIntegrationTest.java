@@ -0,0 +1,115 @@
+package org.rest.sec.persistence;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.rest.common.persistence.ReadWriteRoutingDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and the replica; each knows its own name.
+ */
+public class ReadWriteRoutingDataSourceIntegrationTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @Before
+    public final void before() {
+        final DataSource primary = database("routing_primary");
+        final DataSource replica = database("routing_replica");
+        final ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(primary, Lists.newArrayList(replica));
+        routingDataSource.afterPropertiesSet();
+        final DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        final DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @After
+    public final void after() {
+        ReadWriteRoutingDataSource.unpin();
+    }
+
+    // tests
+
+    @Test
+    public final void whenReadingInReadOnlyTransaction_thenReplicaIsUsed() {
+        // When
+        final String database = whichDatabase(readOnly);
+
+        // Then
+        assertThat(database, equalTo("routing_replica"));
+    }
+
+    @Test
+    public final void whenReadingInReadWriteTransaction_thenPrimaryIsUsed() {
+        // When
+        final String database = whichDatabase(readWrite);
+
+        // Then
+        assertThat(database, equalTo("routing_primary"));
+    }
+
+    @Test
+    public final void givenThreadHasWritten_whenReadingInReadOnlyTransaction_thenPrimaryIsUsed() {
+        whichDatabase(readWrite);
+
+        // When
+        final String database = whichDatabase(readOnly);
+
+        // Then
+        assertThat(database, equalTo("routing_primary"));
+    }
+
+    @Test
+    public final void givenThreadHasWrittenAndWasUnpinned_whenReadingInReadOnlyTransaction_thenReplicaIsUsed() {
+        whichDatabase(readWrite);
+        ReadWriteRoutingDataSource.unpin();
+
+        // When
+        final String database = whichDatabase(readOnly);
+
+        // Then
+        assertThat(database, equalTo("routing_replica"));
+    }
+
+    // util
+
+    private String whichDatabase(final TransactionTemplate transactionTemplate) {
+        return transactionTemplate.execute(new TransactionCallback<String>() {
+            @Override
+            public final String doInTransaction(final TransactionStatus status) {
+                return jdbcTemplate.queryForObject("SELECT NAME FROM WHICH_DATABASE", String.class);
+            }
+        });
+    }
+
+    private static DataSource database(final String name) {
+        final DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        dataSource.setDriverClassName("org.h2.Driver");
+        final JdbcTemplate setup = new JdbcTemplate(dataSource);
+        setup.execute("CREATE TABLE IF NOT EXISTS WHICH_DATABASE (NAME VARCHAR(32))");
+        setup.execute("DELETE FROM WHICH_DATABASE");
+        setup.update("INSERT INTO WHICH_DATABASE VALUES (?)", name);
+        return dataSource;
+    }
+
+}
@@ -0,0 +1,99 @@
+package org.rest.sec.persistence.service;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.rest.common.persistence.service.BulkItemResult;
+import org.rest.common.persistence.service.BulkItemResult.Outcome;
+import org.rest.sec.model.Privilege;
+import org.rest.sec.persistence.util.FixtureFactory;
+import org.rest.sec.spring.ContextConfig;
+import org.rest.sec.spring.PersistenceJPAConfig;
+import org.rest.sec.spring.SecCommonApiConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+
+import com.google.common.collect.Lists;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { PersistenceJPAConfig.class, ContextConfig.class, SecCommonApiConfig.class }, loader = AnnotationConfigContextLoader.class)
+public class BulkOperationsPersistenceIntegrationTest {
+
+    @Autowired
+    private IPrivilegeService privilegeService;
+
+    // tests
+
+    @Test
+    public final void whenResourcesAreCreatedInBulk_thenAllAreCreated() {
+        final List<Privilege> privileges = Lists.newArrayList(FixtureFactory.createNewPrivilege(), FixtureFactory.createNewPrivilege(), FixtureFactory.createNewPrivilege());
+
+        // When
+        final List<BulkItemResult> results = privilegeService.createAll(privileges);
+
+        // Then
+        assertThat(results.size(), equalTo(3));
+        for (final BulkItemResult result : results) {
+            assertThat(result.getOutcome(), equalTo(Outcome.CREATED));
+            assertThat(privilegeService.findOne(result.getId()), notNullValue());
+        }
+    }
+
+    @Test
+    public final void givenOneResourceIsInvalid_whenResourcesAreCreatedInBulk_thenOnlyThatOneFails() {
+        final Privilege existing = privilegeService.create(FixtureFactory.createNewPrivilege());
+        final List<Privilege> privileges = Lists.newArrayList(FixtureFactory.createNewPrivilege(), FixtureFactory.createNewPrivilege(existing.getName()), FixtureFactory.createNewPrivilege());
+
+        // When
+        final List<BulkItemResult> results = privilegeService.createAll(privileges);
+
+        // Then
+        assertThat(results.get(0).getOutcome(), equalTo(Outcome.CREATED));
+        assertThat(results.get(1).getOutcome(), equalTo(Outcome.FAILED));
+        assertThat(results.get(1).getIndex(), equalTo(1));
+        assertThat(results.get(1).getId(), nullValue());
+        assertThat(results.get(2).getOutcome(), equalTo(Outcome.CREATED));
+        assertThat(privilegeService.findOne(results.get(0).getId()).getName(), equalTo(privileges.get(0).getName()));
+        assertThat(privilegeService.findOne(results.get(2).getId()).getName(), equalTo(privileges.get(2).getName()));
+    }
+
+    @Test
+    public final void givenOneResourceDoesNotExist_whenResourcesAreUpdatedInBulk_thenItIsReportedAsNotFound() {
+        final Privilege existing = privilegeService.create(FixtureFactory.createNewPrivilege());
+        final Privilege changed = FixtureFactory.createNewPrivilege();
+        changed.setId(existing.getId());
+        changed.setVersion(existing.getVersion());
+        final Privilege missing = FixtureFactory.createNewPrivilege();
+        missing.setId(Long.MAX_VALUE);
+
+        // When
+        final List<BulkItemResult> results = privilegeService.updateAll(Lists.newArrayList(changed, missing));
+
+        // Then
+        assertThat(results.get(0).getOutcome(), equalTo(Outcome.UPDATED));
+        assertThat(results.get(1).getOutcome(), equalTo(Outcome.NOT_FOUND));
+        assertThat(privilegeService.findOne(existing.getId()).getName(), equalTo(changed.getName()));
+    }
+
+    @Test
+    public final void whenResourcesAreDeletedInBulk_thenExistingOnesAreDeletedAndMissingOnesReported() {
+        final Privilege existing = privilegeService.create(FixtureFactory.createNewPrivilege());
+
+        // When
+        final List<BulkItemResult> results = privilegeService.deleteAll(Lists.newArrayList(existing.getId(), Long.MAX_VALUE));
+
+        // Then
+        assertThat(results.get(0).getOutcome(), equalTo(Outcome.DELETED));
+        assertThat(results.get(1).getOutcome(), equalTo(Outcome.NOT_FOUND));
+        assertThat(privilegeService.findOne(existing.getId()), nullValue());
+    }
+
+}
@@ -0,0 +1,176 @@
+package org.rest.sec.persistence.service;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.Cache;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.rest.sec.model.Principal;
+import org.rest.sec.model.Privilege;
+import org.rest.sec.model.Role;
+import org.rest.sec.persistence.util.FixtureFactory;
+import org.rest.sec.spring.ContextConfig;
+import org.rest.sec.spring.PersistenceJPAConfig;
+import org.rest.sec.spring.SecCommonApiConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+
+import com.google.common.collect.Sets;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { PersistenceJPAConfig.class, ContextConfig.class, SecCommonApiConfig.class }, loader = AnnotationConfigContextLoader.class)
+public class FetchPlanPersistenceIntegrationTest {
+
+    @Autowired
+    private IPrincipalService principalService;
+    @Autowired
+    private IRoleService roleService;
+    @Autowired
+    private IPrivilegeService privilegeService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private SessionFactory sessionFactory;
+
+    @Before
+    public final void before() {
+        sessionFactory = ((HibernateEntityManagerFactory) entityManagerFactory).getSessionFactory();
+    }
+
+    // tests
+
+    @Test
+    public final void whenPageOfPrincipalsIsRetrieved_thenStatementCountDoesNotDependOnThePageSize() {
+        for (int i = 0; i < 10; i++) {
+            createPrincipalWithRoleAndPrivilege();
+        }
+
+        // When
+        final long statementsForOne = statementsFor(new Runnable() {
+            @Override
+            public final void run() {
+                principalService.findAllPaginatedAndSorted(0, 1, "id", "DESC");
+            }
+        });
+        final long statementsForTen = statementsFor(new Runnable() {
+            @Override
+            public final void run() {
+                principalService.findAllPaginatedAndSorted(0, 10, "id", "DESC");
+            }
+        });
+
+        // Then
+        assertThat(statementsForTen, equalTo(statementsForOne));
+    }
+
+    @Test
+    public final void whenPrincipalIsRetrievedByName_thenRolesAndPrivilegesAreLoadedInAtMostThreeStatements() {
+        final Principal principal = createPrincipalWithRoleAndPrivilege();
+
+        // When
+        final long statements = statementsFor(new Runnable() {
+            @Override
+            public final void run() {
+                principalService.findByName(principal.getName());
+            }
+        });
+
+        // Then
+        assertThat(statements, lessThanOrEqualTo(3l));
+    }
+
+    @Test
+    public final void whenPrincipalsAreRetrieved_thenRolesButNotTheirPrivilegesAreLoaded() {
+        createPrincipalWithRoleAndPrivilege();
+
+        // When
+        final List<Principal> principals = principalService.findAllPaginatedAndSorted(0, 5, "id", "DESC");
+
+        // Then
+        for (final Principal principal : principals) {
+            assertTrue(Hibernate.isInitialized(principal.getRoles()));
+            for (final Role role : principal.getRoles()) {
+                assertFalse(Hibernate.isInitialized(role.getPrivileges()));
+            }
+        }
+    }
+
+    @Test
+    public final void whenPrincipalIsRetrieved_thenRolesAndPrivilegesAreUsableOutsideTheTransaction() {
+        final Principal principal = createPrincipalWithRoleAndPrivilege();
+
+        // When
+        final Principal found = principalService.findOne(principal.getId());
+
+        // Then
+        assertTrue(Hibernate.isInitialized(found.getRoles()));
+        for (final Role role : found.getRoles()) {
+            assertTrue(Hibernate.isInitialized(role.getPrivileges()));
+        }
+    }
+
+    @Test
+    public final void whenRolesAreRetrieved_thenPrivilegesAreNotLoaded() {
+        createPrincipalWithRoleAndPrivilege();
+
+        // When
+        final List<Role> roles = roleService.findAll();
+
+        // Then
+        for (final Role role : roles) {
+            assertFalse(Hibernate.isInitialized(role.getPrivileges()));
+        }
+    }
+
+    @Test
+    public final void whenRoleIsRetrieved_thenPrivilegesAreUsableOutsideTheTransaction() {
+        final Role role = roleService.create(FixtureFactory.createNewRole());
+
+        // When
+        final Role found = roleService.findOne(role.getId());
+
+        // Then
+        assertTrue(Hibernate.isInitialized(found.getPrivileges()));
+    }
+
+    // util
+
+    private Principal createPrincipalWithRoleAndPrivilege() {
+        final Privilege privilege = privilegeService.create(FixtureFactory.createNewPrivilege());
+        final Role role = roleService.create(new Role(FixtureFactory.createNewRole().getName(), Sets.newHashSet(privilege)));
+        final Principal principal = FixtureFactory.createNewPrincipal();
+        principal.setRoles(Sets.newHashSet(role));
+        return principalService.create(principal);
+    }
+
+    /**
+     * - note: runs against an empty second level cache, so that every association is read from the database
+     */
+    private long statementsFor(final Runnable operation) {
+        final Cache cache = sessionFactory.getCache();
+        cache.evictEntityRegions();
+        cache.evictCollectionRegions();
+        cache.evictQueryRegions();
+
+        final Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        operation.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+}
@@ -0,0 +1,84 @@
+package org.rest.sec.persistence.service;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.rest.common.persistence.service.KeysetPage;
+import org.rest.sec.model.Privilege;
+import org.rest.sec.persistence.util.FixtureFactory;
+import org.rest.sec.spring.ContextConfig;
+import org.rest.sec.spring.PersistenceJPAConfig;
+import org.rest.sec.spring.SecCommonApiConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+
+import com.google.common.collect.Lists;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { PersistenceJPAConfig.class, ContextConfig.class, SecCommonApiConfig.class }, loader = AnnotationConfigContextLoader.class)
+public class KeysetPaginationPersistenceIntegrationTest {
+
+    @Autowired
+    private IPrivilegeService privilegeService;
+
+    // tests
+
+    @Test
+    public final void givenResourcesExist_whenWalkingAllKeysetPagesSortedByName_thenAllResourcesAreRetrievedInOrder() {
+        for (int i = 0; i < 5; i++) {
+            privilegeService.create(FixtureFactory.createNewPrivilege());
+        }
+        final List<Privilege> expected = privilegeService.findAllSorted("name", "ASC");
+
+        // When
+        final List<Privilege> walked = Lists.newArrayList();
+        String cursor = null;
+        do {
+            final KeysetPage<Privilege> page = privilegeService.findAllAfter(cursor, 2, cursor == null ? "name" : null, null);
+            assertThat(page.getContent().size(), lessThanOrEqualTo(2));
+            walked.addAll(page.getContent());
+            cursor = page.hasNext() ? page.getNext().encode() : null;
+        } while (cursor != null);
+
+        // Then
+        assertThat(walked, equalTo(expected));
+    }
+
+    @Test
+    public final void givenResourcesExist_whenWalkingAllKeysetPagesDescendingById_thenAllResourcesAreRetrievedInOrder() {
+        for (int i = 0; i < 3; i++) {
+            privilegeService.create(FixtureFactory.createNewPrivilege());
+        }
+        final List<Privilege> expected = privilegeService.findAllSorted("id", "DESC");
+
+        // When
+        final List<Privilege> walked = Lists.newArrayList();
+        String cursor = null;
+        do {
+            final KeysetPage<Privilege> page = privilegeService.findAllAfter(cursor, 2, null, "DESC");
+            walked.addAll(page.getContent());
+            cursor = page.hasNext() ? page.getNext().encode() : null;
+        } while (cursor != null);
+
+        // Then
+        assertThat(walked, equalTo(expected));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void givenCursorWasIssuedForOneSort_whenUsedWithAnotherSort_thenException() {
+        privilegeService.create(FixtureFactory.createNewPrivilege());
+        privilegeService.create(FixtureFactory.createNewPrivilege());
+        final KeysetPage<Privilege> page = privilegeService.findAllAfter(null, 1, "name", null);
+
+        // When
+        privilegeService.findAllAfter(page.getNext().encode(), 1, "id", null);
+    }
+
+}
@@ -0,0 +1,88 @@
+package org.rest.sec.persistence.service;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.rest.common.exceptions.PreconditionFailedException;
+import org.rest.sec.model.Principal;
+import org.rest.sec.model.Privilege;
+import org.rest.sec.persistence.util.FixtureFactory;
+import org.rest.sec.spring.ContextConfig;
+import org.rest.sec.spring.PersistenceJPAConfig;
+import org.rest.sec.spring.SecCommonApiConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { PersistenceJPAConfig.class, ContextConfig.class, SecCommonApiConfig.class }, loader = AnnotationConfigContextLoader.class)
+public class OptimisticLockingPersistenceIntegrationTest {
+
+    @Autowired
+    private IPrivilegeService privilegeService;
+    @Autowired
+    private IPrincipalService principalService;
+
+    // tests
+
+    @Test
+    public final void whenEntityIsUpdated_thenVersionIsIncremented() {
+        final Privilege privilege = privilegeService.create(FixtureFactory.createNewPrivilege());
+        final Long versionBefore = privilegeService.findOne(privilege.getId()).getVersion();
+
+        // When
+        final Privilege changes = privilegeService.findOne(privilege.getId());
+        changes.setDescription("changed");
+        privilegeService.update(changes);
+
+        // Then
+        assertThat(privilegeService.findOne(privilege.getId()).getVersion(), equalTo(versionBefore + 1));
+    }
+
+    @Test(expected = OptimisticLockingFailureException.class)
+    public final void givenEntityWasUpdatedSinceItWasRead_whenEntityIsUpdated_thenException() {
+        final Privilege privilege = privilegeService.create(FixtureFactory.createNewPrivilege());
+        final Privilege firstRead = privilegeService.findOne(privilege.getId());
+        final Privilege secondRead = privilegeService.findOne(privilege.getId());
+        firstRead.setDescription("first");
+        privilegeService.update(firstRead);
+
+        // When
+        secondRead.setDescription("second");
+        privilegeService.update(secondRead);
+
+        // Then
+    }
+
+    @Test(expected = PreconditionFailedException.class)
+    public final void givenChangesWithoutVersion_whenEntityIsUpdated_thenException() {
+        final Privilege privilege = privilegeService.create(FixtureFactory.createNewPrivilege());
+        final Privilege changes = privilegeService.findOne(privilege.getId());
+        changes.setVersion(null);
+
+        // When
+        changes.setDescription("changed");
+        privilegeService.update(changes);
+
+        // Then
+    }
+
+    @Test
+    public final void givenChangesWithoutPassword_whenPrincipalIsUpdated_thenPasswordIsKept() {
+        final Principal principal = principalService.create(FixtureFactory.createNewPrincipal());
+        final Principal changes = new Principal(principal.getName() + "-renamed", null, principal.getRoles());
+        changes.setId(principal.getId());
+        changes.setVersion(principal.getVersion());
+
+        // When
+        principalService.update(changes);
+
+        // Then
+        assertThat(principalService.findOne(principal.getId()).getPassword(), equalTo(principal.getPassword()));
+    }
+
+}
@@ -0,0 +1,104 @@
+package org.rest.sec.persistence.service;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Session;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.rest.sec.model.Principal;
+import org.rest.sec.persistence.util.FixtureFactory;
+import org.rest.sec.spring.ContextConfig;
+import org.rest.sec.spring.PersistenceJPAConfig;
+import org.rest.sec.spring.SecCommonApiConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { PersistenceJPAConfig.class, ContextConfig.class, SecCommonApiConfig.class }, loader = AnnotationConfigContextLoader.class)
+public class ReadOnlyTransactionPersistenceIntegrationTest {
+
+    @Autowired
+    private IPrincipalService principalService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @Before
+    public final void before() {
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    // tests
+
+    @Test
+    public final void whenEntityIsLoadedInReadOnlyTransaction_thenEntityIsReadOnly() {
+        final Principal principal = principalService.create(FixtureFactory.createNewPrincipal());
+
+        // When
+        final boolean entityIsReadOnly = isLoadedReadOnly(readOnly, principal.getId());
+
+        // Then
+        assertTrue(entityIsReadOnly);
+    }
+
+    @Test
+    public final void whenEntityIsLoadedInReadWriteTransaction_thenEntityIsNotReadOnly() {
+        final Principal principal = principalService.create(FixtureFactory.createNewPrincipal());
+        isLoadedReadOnly(readOnly, principal.getId());
+
+        // When
+        final boolean entityIsReadOnly = isLoadedReadOnly(readWrite, principal.getId());
+
+        // Then
+        assertFalse(entityIsReadOnly);
+    }
+
+    @Test
+    public final void whenEntityIsChangedInReadOnlyTransaction_thenChangeIsNotPersisted() {
+        final Principal principal = principalService.create(FixtureFactory.createNewPrincipal());
+
+        // When
+        readOnly.execute(new TransactionCallback<Void>() {
+            @Override
+            public final Void doInTransaction(final TransactionStatus status) {
+                entityManager.find(Principal.class, principal.getId()).setName("changedInReadOnlyTransaction");
+                return null;
+            }
+        });
+
+        // Then
+        assertThat(principalService.findOne(principal.getId()).getName(), equalTo(principal.getName()));
+    }
+
+    // util
+
+    private boolean isLoadedReadOnly(final TransactionTemplate transactionTemplate, final long id) {
+        return transactionTemplate.execute(new TransactionCallback<Boolean>() {
+            @Override
+            public final Boolean doInTransaction(final TransactionStatus status) {
+                final Session session = entityManager.unwrap(Session.class);
+                return session.isReadOnly(entityManager.find(Principal.class, id));
+            }
+        });
+    }
+
+}
@@ -0,0 +1,86 @@
+package org.rest.sec.persistence.service;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.rest.sec.model.Role;
+import org.rest.sec.persistence.util.FixtureFactory;
+import org.rest.sec.spring.ContextConfig;
+import org.rest.sec.spring.PersistenceJPAConfig;
+import org.rest.sec.spring.SecCommonApiConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { PersistenceJPAConfig.class, ContextConfig.class, SecCommonApiConfig.class }, loader = AnnotationConfigContextLoader.class)
+public class SecondLevelCachePersistenceIntegrationTest {
+
+    @Autowired
+    private IRoleService roleService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @Before
+    public final void before() {
+        statistics = ((HibernateEntityManagerFactory) entityManagerFactory).getSessionFactory().getStatistics();
+        statistics.clear();
+    }
+
+    // tests
+
+    @Test
+    public final void givenRoleWasLoaded_whenLoadedAgain_thenItComesFromTheSecondLevelCache() {
+        final Role role = roleService.create(FixtureFactory.createNewRole());
+        roleService.findOne(role.getId());
+
+        // When
+        final long hitsBefore = statistics.getSecondLevelCacheStatistics(Role.class.getName()).getHitCount();
+        roleService.findOne(role.getId());
+
+        // Then
+        assertThat(statistics.getSecondLevelCacheStatistics(Role.class.getName()).getHitCount(), greaterThan(hitsBefore));
+    }
+
+    @Test
+    public final void givenRoleWasFoundByName_whenFoundByNameAgain_thenNoStatementIsExecuted() {
+        final Role role = roleService.create(FixtureFactory.createNewRole());
+        roleService.findByName(role.getName());
+
+        // When
+        final long statementsBefore = statistics.getPrepareStatementCount();
+        final Role found = roleService.findByName(role.getName());
+
+        // Then
+        assertThat(found, equalTo(role));
+        assertThat(statistics.getPrepareStatementCount(), equalTo(statementsBefore));
+    }
+
+    @Test
+    public final void givenUnknownNameWasLookedUp_whenLookedUpAgain_thenNoStatementIsExecuted() {
+        final String unknownName = randomAlphabetic(8);
+        roleService.findByName(unknownName);
+
+        // When
+        final long statementsBefore = statistics.getPrepareStatementCount();
+        final Role found = roleService.findByName(unknownName);
+
+        // Then
+        assertThat(found, nullValue());
+        assertThat(statistics.getPrepareStatementCount(), equalTo(statementsBefore));
+    }
+
+}
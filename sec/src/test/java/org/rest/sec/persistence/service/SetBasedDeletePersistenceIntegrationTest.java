@@ -0,0 +1,107 @@
+package org.rest.sec.persistence.service;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.rest.common.util.IDUtil;
+import org.rest.sec.model.Principal;
+import org.rest.sec.model.Privilege;
+import org.rest.sec.model.Role;
+import org.rest.sec.persistence.util.FixtureFactory;
+import org.rest.sec.spring.ContextConfig;
+import org.rest.sec.spring.PersistenceJPAConfig;
+import org.rest.sec.spring.SecCommonApiConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { PersistenceJPAConfig.class, ContextConfig.class, SecCommonApiConfig.class }, loader = AnnotationConfigContextLoader.class)
+public class SetBasedDeletePersistenceIntegrationTest {
+
+    @Autowired
+    private IPrincipalService principalService;
+    @Autowired
+    private IRoleService roleService;
+    @Autowired
+    private IPrivilegeService privilegeService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @Before
+    public final void before() {
+        statistics = ((HibernateEntityManagerFactory) entityManagerFactory).getSessionFactory().getStatistics();
+    }
+
+    // tests
+
+    @Test
+    public final void givenRoleIsAssociatedBothWays_whenDeletedById_thenJoinTableRowsAreDeletedAsWell() {
+        final Privilege privilege = privilegeService.create(FixtureFactory.createNewPrivilege());
+        final Role role = roleService.create(new Role(FixtureFactory.createNewRole().getName(), Sets.newHashSet(privilege)));
+        final Principal principal = FixtureFactory.createNewPrincipal();
+        principal.setRoles(Sets.newHashSet(role));
+        principalService.create(principal);
+
+        // When
+        final boolean deleted = roleService.deleteById(role.getId());
+
+        // Then
+        assertThat(deleted, equalTo(true));
+        assertThat(roleService.findOne(role.getId()), nullValue());
+        assertThat(principalService.findOne(principal.getId()).getRoles(), empty());
+        assertThat(privilegeService.findOne(privilege.getId()), notNullValue());
+    }
+
+    @Test
+    public final void givenResourceExists_whenDeletedById_thenItIsNotLoaded() {
+        final Role role = roleService.create(FixtureFactory.createNewRole());
+        statistics.clear();
+
+        // When
+        roleService.deleteById(role.getId());
+
+        // Then
+        assertThat(statistics.getEntityLoadCount(), equalTo(0l));
+    }
+
+    @Test
+    public final void givenResourceDoesNotExist_whenDeletedById_thenNothingIsDeleted() {
+        // When
+        final boolean deleted = roleService.deleteById(IDUtil.randomPositiveLong());
+
+        // Then
+        assertThat(deleted, equalTo(false));
+    }
+
+    @Test
+    public final void whenDeletedByIds_thenOnlyExistingResourcesAreCounted() {
+        final Privilege privilege1 = privilegeService.create(FixtureFactory.createNewPrivilege());
+        final Privilege privilege2 = privilegeService.create(FixtureFactory.createNewPrivilege());
+
+        // When
+        final int deleted = privilegeService.deleteByIds(Lists.newArrayList(privilege1.getId(), privilege2.getId(), IDUtil.randomPositiveLong()));
+
+        // Then
+        assertThat(deleted, equalTo(2));
+        assertThat(privilegeService.findOne(privilege1.getId()), nullValue());
+        assertThat(privilegeService.findOne(privilege2.getId()), nullValue());
+    }
+
+}
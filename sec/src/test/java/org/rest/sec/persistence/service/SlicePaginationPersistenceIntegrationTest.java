@@ -0,0 +1,55 @@
+package org.rest.sec.persistence.service;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.rest.common.persistence.service.Slice;
+import org.rest.sec.model.Privilege;
+import org.rest.sec.persistence.util.FixtureFactory;
+import org.rest.sec.spring.ContextConfig;
+import org.rest.sec.spring.PersistenceJPAConfig;
+import org.rest.sec.spring.SecCommonApiConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { PersistenceJPAConfig.class, ContextConfig.class, SecCommonApiConfig.class }, loader = AnnotationConfigContextLoader.class)
+public class SlicePaginationPersistenceIntegrationTest {
+
+    @Autowired
+    private IPrivilegeService privilegeService;
+
+    // tests
+
+    @Test
+    public final void givenMoreResourcesThanTheSliceSize_whenFirstSliceIsRetrieved_thenThereIsANextSlice() {
+        privilegeService.create(FixtureFactory.createNewPrivilege());
+        privilegeService.create(FixtureFactory.createNewPrivilege());
+
+        // When
+        final Slice<Privilege> slice = privilegeService.findAllSliced(0, 1, null, null);
+
+        // Then
+        assertThat(slice.getContent().size(), equalTo(1));
+        assertThat(slice.hasNextPage(), equalTo(true));
+        assertThat(slice.hasPreviousPage(), equalTo(false));
+    }
+
+    @Test
+    public final void whenLastSliceIsRetrieved_thenThereIsNoNextSlice() {
+        privilegeService.create(FixtureFactory.createNewPrivilege());
+        final int total = (int) privilegeService.count();
+
+        // When
+        final Slice<Privilege> slice = privilegeService.findAllSliced(0, total, "id", "ASC");
+
+        // Then
+        assertThat(slice.getContent().size(), equalTo(total));
+        assertThat(slice.hasNextPage(), equalTo(false));
+    }
+
+}
@@ -0,0 +1,54 @@
+package org.rest.sec.persistence.service;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.rest.common.persistence.service.IConsumer;
+import org.rest.sec.model.Privilege;
+import org.rest.sec.persistence.util.FixtureFactory;
+import org.rest.sec.spring.ContextConfig;
+import org.rest.sec.spring.PersistenceJPAConfig;
+import org.rest.sec.spring.SecCommonApiConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+
+import com.google.common.collect.Lists;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { PersistenceJPAConfig.class, ContextConfig.class, SecCommonApiConfig.class }, loader = AnnotationConfigContextLoader.class)
+public class StreamAllPersistenceIntegrationTest {
+
+    @Autowired
+    private IPrivilegeService privilegeService;
+
+    // tests
+
+    @Test
+    public final void whenAllResourcesAreStreamed_thenEachResourceIsConsumedOnceInIdOrder() {
+        privilegeService.create(FixtureFactory.createNewPrivilege());
+        privilegeService.create(FixtureFactory.createNewPrivilege());
+        final List<Privilege> all = privilegeService.findAllSorted("id", "ASC");
+
+        // When
+        final List<Long> streamedIds = Lists.newArrayList();
+        privilegeService.streamAll(new IConsumer<Privilege>() {
+            @Override
+            public final void accept(final Privilege entity) {
+                streamedIds.add(entity.getId());
+            }
+        });
+
+        // Then
+        assertThat(streamedIds.size(), equalTo(all.size()));
+        for (int i = 0; i < all.size(); i++) {
+            assertThat(streamedIds.get(i), equalTo(all.get(i).getId()));
+        }
+    }
+
+}
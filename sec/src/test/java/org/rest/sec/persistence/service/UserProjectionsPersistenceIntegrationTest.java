@@ -0,0 +1,134 @@
+package org.rest.sec.persistence.service;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.rest.sec.model.Principal;
+import org.rest.sec.model.Privilege;
+import org.rest.sec.model.Role;
+import org.rest.sec.model.dto.User;
+import org.rest.sec.persistence.service.dto.IUserService;
+import org.rest.sec.persistence.util.FixtureFactory;
+import org.rest.sec.spring.ContextConfig;
+import org.rest.sec.spring.PersistenceJPAConfig;
+import org.rest.sec.spring.SecCommonApiConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { PersistenceJPAConfig.class, ContextConfig.class, SecCommonApiConfig.class }, loader = AnnotationConfigContextLoader.class)
+public class UserProjectionsPersistenceIntegrationTest {
+
+    @Autowired
+    private IUserService userService;
+    @Autowired
+    private IPrincipalService principalService;
+    @Autowired
+    private IRoleService roleService;
+    @Autowired
+    private IPrivilegeService privilegeService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @Before
+    public final void before() {
+        final SessionFactory sessionFactory = ((HibernateEntityManagerFactory) entityManagerFactory).getSessionFactory();
+        statistics = sessionFactory.getStatistics();
+    }
+
+    // tests
+
+    @Test
+    public final void givenPrincipalWithRoleAndPrivilege_whenUsersAreRetrieved_thenUserCarriesTheRoleAndThePrivilege() {
+        final Principal principal = createPrincipalWithRoleAndPrivilege();
+        final Role role = Iterables.getOnlyElement(principal.getRoles());
+        final Privilege privilege = Iterables.getOnlyElement(role.getPrivileges());
+
+        // When
+        final User user = findById(userService.findAll(), principal.getId());
+
+        // Then
+        assertThat(user.getName(), equalTo(principal.getName()));
+        final Role userRole = Iterables.getOnlyElement(user.getRoles());
+        assertThat(userRole.getId(), equalTo(role.getId()));
+        assertThat(Iterables.getOnlyElement(userRole.getPrivileges()).getName(), equalTo(privilege.getName()));
+    }
+
+    @Test
+    public final void whenPageOfUsersIsRetrieved_thenNoEntityIsLoaded() {
+        for (int i = 0; i < 5; i++) {
+            createPrincipalWithRoleAndPrivilege();
+        }
+        statistics.clear();
+
+        // When
+        userService.findAllPaginatedAndSorted(0, 5, "id", "DESC");
+
+        // Then
+        assertThat(statistics.getEntityLoadCount(), equalTo(0l));
+        assertThat(statistics.getCollectionLoadCount(), equalTo(0l));
+    }
+
+    @Test
+    public final void whenSliceOfUsersIsRetrieved_thenRolesAreReadInOneStatement() {
+        for (int i = 0; i < 5; i++) {
+            createPrincipalWithRoleAndPrivilege();
+        }
+        statistics.clear();
+
+        // When
+        userService.findAllSliced(0, 5, "id", "DESC");
+
+        // Then
+        assertThat(statistics.getPrepareStatementCount(), lessThanOrEqualTo(2l));
+    }
+
+    @Test
+    public final void givenPrincipalWithoutRoles_whenUsersAreRetrieved_thenUserHasNoRoles() {
+        final Principal principal = principalService.create(FixtureFactory.createNewPrincipal());
+
+        // When
+        final User user = findById(userService.findAll(), principal.getId());
+
+        // Then
+        assertThat(user.getRoles().size(), equalTo(0));
+    }
+
+    // util
+
+    private Principal createPrincipalWithRoleAndPrivilege() {
+        final Privilege privilege = privilegeService.create(FixtureFactory.createNewPrivilege());
+        final Role role = roleService.create(new Role(FixtureFactory.createNewRole().getName(), Sets.newHashSet(privilege)));
+        final Principal principal = FixtureFactory.createNewPrincipal();
+        principal.setRoles(Sets.newHashSet(role));
+        return principalService.create(principal);
+    }
+
+    private static User findById(final List<User> users, final long id) {
+        for (final User user : users) {
+            if (user.getId() == id) {
+                return user;
+            }
+        }
+        throw new AssertionError("No user with id " + id);
+    }
+
+}
@@ -5,10 +5,13 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 
+import java.util.Set;
+
 import org.hamcrest.Matchers;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -24,6 +27,7 @@ import org.rest.sec.test.SecLogicRestIntegrationTest;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import com.google.common.collect.Sets;
+import com.google.common.net.HttpHeaders;
 import com.jayway.restassured.response.Response;
 
 public class RoleLogicRestIntegrationTest extends SecLogicRestIntegrationTest<Role> implements IResourceWithAssociationsIntegrationTest {
@@ -213,6 +217,81 @@ public class RoleLogicRestIntegrationTest extends SecLogicRestIntegrationTest<Ro
         assertThat(updatedResource.getPrivileges(), hasItem(existingAssociation));
     }
 
+    @Test
+    public final void givenResourceWasRetrieved_whenResourceIsUpdatedWithItsETagInIfMatch_then200IsReceived() {
+        final Role existingResource = getApi().create(getEntityOps().createNewEntity());
+        final Response findResponse = getApi().findOneByUriAsResponse(getUri() + existingResource.getId(), givenAuthenticated().header(HttpHeaders.ACCEPT_ENCODING, "gzip"));
+        final String etag = findResponse.getHeader(HttpHeaders.ETAG);
+        final Role retrievedResource = getApi().getMarshaller().decode(findResponse.asString(), Role.class);
+        retrievedResource.setName(randomAlphabetic(8));
+
+        // When
+        final Response updateResponse = getApi().updateAsResponse(retrievedResource, givenAuthenticated().header(HttpHeaders.IF_MATCH, etag));
+
+        // Then
+        assertThat(etag, not(startsWith("W/")));
+        assertThat(updateResponse.getStatusCode(), is(200));
+    }
+
+    @Test
+    public final void givenResourceWasUpdatedWithItsETagInIfMatch_whenTheSameETagIsReplayed_then412IsReceived() {
+        final Role existingResource = getApi().create(getEntityOps().createNewEntity());
+        final Response findResponse = getApi().findOneByUriAsResponse(getUri() + existingResource.getId(), null);
+        final String etag = findResponse.getHeader(HttpHeaders.ETAG);
+        final Role retrievedResource = getApi().getMarshaller().decode(findResponse.asString(), Role.class);
+        retrievedResource.setName(randomAlphabetic(8));
+        getApi().updateAsResponse(retrievedResource, givenAuthenticated().header(HttpHeaders.IF_MATCH, etag));
+        retrievedResource.setName(randomAlphabetic(8));
+
+        // When
+        final Response updateResponse = getApi().updateAsResponse(retrievedResource, givenAuthenticated().header(HttpHeaders.IF_MATCH, etag));
+
+        // Then
+        assertThat(updateResponse.getStatusCode(), is(412));
+    }
+
+    @Test
+    public final void givenResourceWasRetrievedAndAPrivilegeWasCreatedSince_whenResourceIsUpdatedWithItsETagInIfMatch_then200IsReceived() {
+        final Role existingResource = getApi().create(getEntityOps().createNewEntity());
+        final Response findResponse = getApi().findOneByUriAsResponse(getUri() + existingResource.getId(), null);
+        final String etag = findResponse.getHeader(HttpHeaders.ETAG);
+        final Role retrievedResource = getApi().getMarshaller().decode(findResponse.asString(), Role.class);
+        getAssociationAPI().create(getAssociationEntityOps().createNewEntity());
+        retrievedResource.setName(randomAlphabetic(8));
+
+        // When
+        final Response updateResponse = getApi().updateAsResponse(retrievedResource, givenAuthenticated().header(HttpHeaders.IF_MATCH, etag));
+
+        // Then
+        assertThat(updateResponse.getStatusCode(), is(200));
+    }
+
+    @Test
+    public final void givenResourceWasRetrieved_whenResourceIsRetrievedAgainWithItsETagInIfNoneMatch_then304IsReceived() {
+        final Role existingResource = getApi().create(getEntityOps().createNewEntity());
+        final String etag = getApi().findOneByUriAsResponse(getUri() + existingResource.getId(), null).getHeader(HttpHeaders.ETAG);
+
+        // When
+        final Response response = getApi().findOneByUriAsResponse(getUri() + existingResource.getId(), givenAuthenticated().header(HttpHeaders.IF_NONE_MATCH, etag));
+
+        // Then
+        assertThat(response.getStatusCode(), is(304));
+    }
+
+    @Test
+    public final void givenResourceWasRetrieved_whenResourceIsUpdatedWithAWeakETagInIfMatch_then412IsReceived() {
+        final Role existingResource = getApi().create(getEntityOps().createNewEntity());
+        final Response findResponse = getApi().findOneByUriAsResponse(getUri() + existingResource.getId(), null);
+        final String etag = findResponse.getHeader(HttpHeaders.ETAG);
+        final Role retrievedResource = getApi().getMarshaller().decode(findResponse.asString(), Role.class);
+
+        // When
+        final Response updateResponse = getApi().updateAsResponse(retrievedResource, givenAuthenticated().header(HttpHeaders.IF_MATCH, "W/" + etag));
+
+        // Then
+        assertThat(updateResponse.getStatusCode(), is(412));
+    }
+
     // delete
 
     @Test
@@ -248,6 +327,25 @@ public class RoleLogicRestIntegrationTest extends SecLogicRestIntegrationTest<Ro
         assertThat(resource1ViewOfServerAfter.getPrivileges(), hasItem(existingAssociation));
     }
 
+    // compression
+
+    @Test
+    public final void givenTwoResourcesExist_whenBothAreRetrievedCompressed_thenEachBodyIsTheBodyOfItsResource() {
+        // large enough to be compressed
+        final Role resource1 = getApi().create(new Role(randomAlphabetic(8), createPrivilegesWithLongNames(6)));
+        final Role resource2 = getApi().create(new Role(randomAlphabetic(8), createPrivilegesWithLongNames(6)));
+
+        // When
+        final Response response1 = getApi().findOneByUriAsResponse(getUri() + resource1.getId(), givenAuthenticated().header(HttpHeaders.ACCEPT_ENCODING, "gzip"));
+        final Response response2 = getApi().findOneByUriAsResponse(getUri() + resource2.getId(), givenAuthenticated().header(HttpHeaders.ACCEPT_ENCODING, "gzip"));
+
+        // Then
+        assertThat(response1.getHeader(HttpHeaders.CONTENT_ENCODING), is("gzip"));
+        assertThat(response2.getHeader(HttpHeaders.CONTENT_ENCODING), is("gzip"));
+        assertThat(getApi().getMarshaller().decode(response1.asString(), Role.class).getId(), is(resource1.getId()));
+        assertThat(getApi().getMarshaller().decode(response2.asString(), Role.class).getId(), is(resource2.getId()));
+    }
+
     // template
 
     @Override
@@ -262,6 +360,14 @@ public class RoleLogicRestIntegrationTest extends SecLogicRestIntegrationTest<Ro
 
     // util
 
+    private Set<Privilege> createPrivilegesWithLongNames(final int count) {
+        final Set<Privilege> privileges = Sets.newHashSet();
+        for (int i = 0; i < count; i++) {
+            privileges.add(getAssociationAPI().create(new Privilege(randomAlphabetic(200))));
+        }
+        return privileges;
+    }
+
     final PrivilegeTestRestTemplate getAssociationAPI() {
         return associationApi;
     }
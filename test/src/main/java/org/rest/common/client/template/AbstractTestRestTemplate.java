@@ -232,10 +232,15 @@ public abstract class AbstractTestRestTemplate<T extends IEntity> implements IRe
 
     @Override
     public final Response updateAsResponse(final T resource) {
+        return updateAsResponse(resource, givenAuthenticated());
+    }
+
+    @Override
+    public final Response updateAsResponse(final T resource, final RequestSpecification req) {
         Preconditions.checkNotNull(resource);
 
         final String resourceAsString = marshaller.encode(resource);
-        return givenAuthenticated().contentType(marshaller.getMime()).body(resourceAsString).put(getUri());
+        return req.contentType(marshaller.getMime()).body(resourceAsString).put(getUri());
     }
 
     // delete
@@ -41,6 +41,8 @@ public interface ITemplateAsResponse<T extends IEntity> {
 
     Response updateAsResponse(final T resource);
 
+    Response updateAsResponse(final T resource, final RequestSpecification req);
+
     // delete
 
     Response deleteAsResponse(final String uriOfResource);
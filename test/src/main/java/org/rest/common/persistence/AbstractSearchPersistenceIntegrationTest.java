@@ -428,6 +428,30 @@ public abstract class AbstractSearchPersistenceIntegrationTest<T extends INameab
         assertThat(searchResults, hasItem(existingResource));
     }
 
+    @Test
+    public final void givenResourceWithNameExists_whenResourceIsSearchedByNameUpperCase_thenResourceIsFound() {
+        final T existingResource = persistNewEntity();
+
+        // When
+        final List<T> found = getApi().searchAll(createNameConstraint(EQ, existingResource.getName().toUpperCase()));
+
+        // Then
+        assertThat(found, hasItem(existingResource));
+    }
+
+    @Test
+    public final void givenResourceWasRenamed_whenResourceIsSearchedByNewName_thenResourceIsFound() {
+        final T existingResource = persistNewEntity();
+        getEntityOps().change(existingResource);
+        getApi().update(existingResource);
+
+        // When
+        final List<T> found = getApi().searchAll(createNameConstraint(ClientOperation.STARTS_WITH, existingResource.getName().toUpperCase()));
+
+        // Then
+        assertThat(found, hasItem(existingResource));
+    }
+
     // template method
 
     protected abstract IService<T> getApi();